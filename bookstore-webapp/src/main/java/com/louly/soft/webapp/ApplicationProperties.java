@@ -1,6 +1,13 @@
 package com.louly.soft.webapp;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.MediaType;
 
+/**
+ * @param apiMediaType preferred representation of the API responses read through the gateway
+ *        (application/x-jackson-smile, application/cbor or application/json, the default), JSON stays the fallback
+ */
 @ConfigurationProperties(prefix = "bookstore")
-public record ApplicationProperties(String apiGatewayUrl) {}
+public record ApplicationProperties(
+        String apiGatewayUrl, @DefaultValue(MediaType.APPLICATION_JSON_VALUE) String apiMediaType) {}
@@ -8,6 +8,8 @@ import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
 import org.springframework.boot.web.client.RestClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
@@ -31,8 +33,22 @@ class ClientsConfig {
                     c.setReadTimeout(Duration.ofSeconds(5));
                 })
                 .build();
-        return restClientBuilder ->
-                restClientBuilder.baseUrl(properties.apiGatewayUrl()).requestFactory(requestFactory);
+        String accept = accept(properties.apiMediaType());
+        return restClientBuilder -> restClientBuilder
+                .baseUrl(properties.apiGatewayUrl())
+                .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.ACCEPT, accept);
+    }
+
+    /**
+     * The preferred media type, with JSON as fallback when it is not JSON itself.
+     */
+    static String accept(String mediaType) {
+        MediaType preferred = MediaType.parseMediaType(mediaType);
+        if (preferred.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            return MediaType.APPLICATION_JSON_VALUE;
+        }
+        return preferred + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
     }
 
     @Bean
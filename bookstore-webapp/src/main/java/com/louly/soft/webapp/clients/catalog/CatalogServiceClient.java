@@ -7,8 +7,11 @@ import org.springframework.web.service.annotation.GetExchange;
 
 public interface CatalogServiceClient {
 
+    /**
+     * @param fields sparse fieldset, e.g. "code,name,price": the other fields of the products are null
+     */
     @GetExchange("/catalog/api/products")
-    PagedResult<Product> getProducts(@RequestParam int page);
+    PagedResult<Product> getProducts(@RequestParam int page, @RequestParam String fields);
 
     @GetExchange("/catalog/api/products/{code}")
     ResponseEntity<Product> getProductByCode(@PathVariable String code);
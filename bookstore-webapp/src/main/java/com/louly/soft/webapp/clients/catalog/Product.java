@@ -1,5 +1,10 @@
 package com.louly.soft.webapp.clients.catalog;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.math.BigDecimal;
 
+/**
+ * The fields left out of a sparse fieldset are null and not passed on to the browser.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record Product(Long id, String code, String name, String description, String imageUrl, BigDecimal price) {}
@@ -14,6 +14,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 class ProductController {
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+    // what the product grid renders (products.html), the description is most of the payload
+    private static final String PRODUCT_GRID_FIELDS = "code,name,price,imageUrl";
     private final CatalogServiceClient catalogService;
 
     ProductController(CatalogServiceClient catalogService) {
@@ -42,6 +44,6 @@ class ProductController {
     @ResponseBody
     PagedResult<Product> products(@RequestParam(name = "page", defaultValue = "1") int page, Model model) {
         log.info("Fetching products for page: {}", page);
-        return catalogService.getProducts(page);
+        return catalogService.getProducts(page, PRODUCT_GRID_FIELDS);
     }
 }
@@ -1,13 +1,134 @@
 package com.louly.soft.bookstore.catalog;
 
+import com.louly.soft.bookstore.catalog.config.ReplicaSelection;
+import com.louly.soft.bookstore.catalog.domain.TotalCountMode;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
 
 /**
  * enable ConfigurationProperties on top of main class
  * and need to configure the same variable pageSize in application properties or yaml file
  * @param pageSize
+ * @param totalCount default way of computing the totals of a products page, can be overridden with ?count=
+ * @param totalCountRefreshInterval how often the cached products count used by the ESTIMATED mode is refreshed
+ * @param maxLookupCodes maximum number of distinct codes accepted by one bulk lookup
+ * @param suggestMaxResults maximum number of suggestions returned by /api/products/suggest
+ * @param suggestRefreshInterval how often new products are added to the in-memory suggestion index
+ * @param suggestReloadInterval how often the suggestion index is fully rebuilt (renamed or deleted products)
+ * @param httpCacheMaxAge Cache-Control max-age of the product responses, 0 means no-cache (always revalidate)
+ * @param adminApiEnabled registers the write endpoints (POST /api/products/import, DELETE /api/products/{code})
+ * @param importBatchSize number of rows copied and upserted per transaction by the bulk import
+ * @param replicaRoutingEnabled routes the read-only transactions to the replicas
+ * @param replicaUrls jdbc urls of the read replicas, their user needs the pg_read_all_stats role (WAL receiver status)
+ * @param replicaSelection how a replica is picked for a read-only transaction
+ * @param replicaMaxLag replicas lagging behind the primary by more than this are not used
+ * @param replicaLagCheckInterval how often the lag of the replicas is measured, also the resolution of the measure
+ * @param productEventsExchange RabbitMQ exchange of the product change events
+ * @param productCreatedRoutingKey routing key of the ProductCreatedEvent messages
+ * @param productPriceChangedRoutingKey routing key of the ProductPriceChangedEvent messages
+ * @param productDeletedRoutingKey routing key of the ProductDeletedEvent messages
+ * @param publishProductEventsBatchSize maximum number of outbox events published per transaction, a job run publishes
+ * batch after batch until the outbox is empty
+ * @param snapshotEnabled serves the product pages and product by code from an in-memory copy of the catalog
+ * @param snapshotRefreshInterval how often the in-memory catalog is checked for changes (and reloaded)
+ * @param responseCacheEnabled serves the JSON of the default product pages and product by code from a byte cache,
+ * changes made by other instances show up after catalog.response-cache-ttl
+ * @param responseCacheMaxSize maximum size of the cached response bytes
+ * @param responseCacheTtl how long a cached response is served, changes made by other instances show up after it
+ * @param responseCacheGzip keeps a gzipped copy of every cached response for the clients accepting gzip
+ * @param secondLevelCacheEnabled enables the Hibernate second-level cache of ProductEntity and the product query cache
+ * @param productCacheMaxSize maximum number of products in the second-level cache
+ * @param productCacheTtl how long a product stays in the second-level cache
+ * @param productQueryCacheMaxSize maximum number of cached product query results (pages, product by code)
+ * @param productQueryCacheTtl how long a product query result stays in the query cache
+ * @param popularMaxResults size of the most viewed products ranking returned by /api/products/popular
+ * @param popularFlushInterval how often the view counters are added to the product_stats table
+ * @param popularReloadInterval how often the ranking is reloaded, to include the views counted by the other instances
+ * @param facetEnabled builds the in-memory facet index of /api/products/browse, empty results otherwise
+ * @param facetPriceBuckets bounds of the price facet buckets, [10, 25, 50] gives 0-10, 10-25, 25-50 and 50+
+ * @param facetRefreshInterval how often the in-memory facet index is checked for changes (and rebuilt)
+ * @param facetMaxValues maximum number of values returned per facet by /api/products/browse, the most frequent ones
+ * @param similarEnabled builds the in-memory similarity index of /api/products/{code}/similar, empty results otherwise
+ * @param similarMaxResults maximum number of products returned by /api/products/{code}/similar
+ * @param similarDimensions size of the hashed TF-IDF vectors of the similarity index (memory: products x dimensions floats)
+ * @param similarRefreshInterval how often the in-memory similarity index is checked for changes (and rebuilt)
+ * @param changesMaxResults maximum number of changes (products and deleted codes) returned by /api/products/changes
+ * @param stockReservationsEnabled registers the internal stock reservation endpoints (/internal/stock/reservations),
+ * and loads the stock counters and starts the writer of the reservations on startup
+ * @param stockMaxBatchSize maximum number of stock reservations and releases written in one transaction
+ * @param stockSyncInterval how often the in-memory stock counters are set again from product_stock
+ * @param codeFilterEnabled answers the lookups of unknown product codes from a Bloom filter, without the database
+ * @param codeFilterFalsePositiveRate share of the unknown codes the Bloom filter lets through (memory: ~9.6 bits per code at 1%)
+ * @param codeFilterRefreshInterval how often the Bloom filter is checked for changes (and rebuilt without the deleted
+ * codes), also how long a product created by another instance or with plain SQL can be answered 404 (the products
+ * created by this instance are added when they are committed)
+ * @param warmupEnabled warms the connection pools, caches and code paths up at startup, the instance is not ready before
+ * @param warmupDuration how long the product requests of the warm-up are repeated
+ * @param warmupRequestTimeout connect and read timeout of every warm-up request
+ * @param warmupTimeout the instance is made ready after this time even if the warm-up is not finished
+ * @param indexRefreshDelay how long after a change made here the in-memory indexes are rebuilt, the changes made
+ * meanwhile are included in the same rebuild
  */
 @ConfigurationProperties(prefix = "catalog")
-public record ApplicationProperties(@DefaultValue("10") @Min(1) int pageSize) {}
+public record ApplicationProperties(
+        @DefaultValue("10") @Min(1) int pageSize,
+        @DefaultValue("EXACT") TotalCountMode totalCount,
+        @DefaultValue("30s") Duration totalCountRefreshInterval,
+        @DefaultValue("500") @Min(1) int maxLookupCodes,
+        @DefaultValue("10") @Min(1) int suggestMaxResults,
+        @DefaultValue("1m") Duration suggestRefreshInterval,
+        @DefaultValue("1h") Duration suggestReloadInterval,
+        @DefaultValue("0s") Duration httpCacheMaxAge,
+        @DefaultValue("false") boolean adminApiEnabled,
+        @DefaultValue("10000") @Min(1) int importBatchSize,
+        @DefaultValue("false") boolean replicaRoutingEnabled,
+        @DefaultValue List<String> replicaUrls,
+        @DefaultValue("ROUND_ROBIN") ReplicaSelection replicaSelection,
+        @DefaultValue("10s") Duration replicaMaxLag,
+        @DefaultValue("5s") Duration replicaLagCheckInterval,
+        @DefaultValue("catalog-exchange") String productEventsExchange,
+        @DefaultValue("product-created") String productCreatedRoutingKey,
+        @DefaultValue("product-price-changed") String productPriceChangedRoutingKey,
+        @DefaultValue("product-deleted") String productDeletedRoutingKey,
+        @DefaultValue("500") @Min(1) int publishProductEventsBatchSize,
+        @DefaultValue("false") boolean snapshotEnabled,
+        @DefaultValue("10s") Duration snapshotRefreshInterval,
+        @DefaultValue("false") boolean responseCacheEnabled,
+        @DefaultValue("16MB") DataSize responseCacheMaxSize,
+        @DefaultValue("30s") Duration responseCacheTtl,
+        @DefaultValue("true") boolean responseCacheGzip,
+        @DefaultValue("false") boolean secondLevelCacheEnabled,
+        @DefaultValue("10000") @Min(1) long productCacheMaxSize,
+        @DefaultValue("10m") Duration productCacheTtl,
+        @DefaultValue("1000") @Min(1) long productQueryCacheMaxSize,
+        @DefaultValue("1m") Duration productQueryCacheTtl,
+        @DefaultValue("20") @Min(1) int popularMaxResults,
+        @DefaultValue("10s") Duration popularFlushInterval,
+        @DefaultValue("1m") Duration popularReloadInterval,
+        @DefaultValue("false") boolean facetEnabled,
+        @DefaultValue({"10", "25", "50"}) List<BigDecimal> facetPriceBuckets,
+        @DefaultValue("30s") Duration facetRefreshInterval,
+        @DefaultValue("20") @Min(1) int facetMaxValues,
+        @DefaultValue("false") boolean similarEnabled,
+        @DefaultValue("10") @Min(1) int similarMaxResults,
+        @DefaultValue("128") @Min(1) int similarDimensions,
+        @DefaultValue("1m") Duration similarRefreshInterval,
+        @DefaultValue("1000") @Min(1) int changesMaxResults,
+        @DefaultValue("false") boolean stockReservationsEnabled,
+        @DefaultValue("10000") @Min(1) int stockMaxBatchSize,
+        @DefaultValue("1s") Duration stockSyncInterval,
+        @DefaultValue("false") boolean codeFilterEnabled,
+        @DefaultValue("0.01") @DecimalMin(value = "0", inclusive = false) @DecimalMax(value = "1", inclusive = false) double codeFilterFalsePositiveRate,
+        @DefaultValue("10s") Duration codeFilterRefreshInterval,
+        @DefaultValue("true") boolean warmupEnabled,
+        @DefaultValue("10s") Duration warmupDuration,
+        @DefaultValue("5s") Duration warmupRequestTimeout,
+        @DefaultValue("1m") Duration warmupTimeout,
+        @DefaultValue("1s") Duration indexRefreshDelay) {}
@@ -1,13 +1,17 @@
 package com.louly.soft.bookstore.catalog;
 
+import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 // @EnableConfigurationProperties(ApplicationProperties.class)
 // or do not need to specify the ApplicationProperties.class file
 @ConfigurationPropertiesScan
+@EnableScheduling
+@EnableSchedulerLock(defaultLockAtMostFor = "10m")
 public class CatalogServiceApplication {
 
     public static void main(String[] args) {
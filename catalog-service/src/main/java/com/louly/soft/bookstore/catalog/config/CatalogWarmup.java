@@ -0,0 +1,286 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Warm-up of a freshly started instance (catalog.warmup-enabled), so the first requests routed to it are not the ones
+ * paying for the cold connection pools, the Hibernate and Jackson first uses and the interpreted code.
+ * It starts once the application is ready, after the in-memory indexes and snapshot are loaded: the connection pools
+ * are filled up to their minimum idle size, then the product pages (default and sorted by price) and products by code
+ * are requested from this instance over HTTP for catalog.warmup-duration, through the same controllers, services,
+ * serialization and response cache as the real traffic (MVC or reactive). They carry the REQUEST_HEADER, so that
+ * they are not counted as product views. Every request is bounded by catalog.warmup-request-timeout and the whole
+ * warm-up by catalog.warmup-timeout, after which the instance is made ready anyway.
+ * WarmupHealthIndicator keeps the readiness probe OUT_OF_SERVICE until it is finished.
+ * The latency of the first request of each kind is logged next to the median of the last ones.
+ */
+@Component
+public class CatalogWarmup {
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmup.class);
+    private static final int RECENT_LATENCIES = 64;
+    private static final int MAX_CODES = 1000;
+
+    /**
+     * Sent with the warm-up requests, the controllers do not count them as product views.
+     */
+    public static final String REQUEST_HEADER = "X-Catalog-Warmup";
+
+    private final ApplicationProperties properties;
+    private final ObjectProvider<HikariDataSource> hikariDataSources;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
+    private final ObjectProvider<ConnectionPoolWarmup> otherPools;
+    private final ServerProperties serverProperties;
+    private final ObjectProvider<SslBundles> sslBundles;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean finished;
+    private volatile int port;
+    private volatile double durationSeconds = Double.NaN;
+
+    CatalogWarmup(
+            ApplicationProperties properties,
+            ObjectProvider<HikariDataSource> hikariDataSources,
+            ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource,
+            ObjectProvider<ConnectionPoolWarmup> otherPools,
+            ServerProperties serverProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hikariDataSources = hikariDataSources;
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+        this.otherPools = otherPools;
+        this.serverProperties = serverProperties;
+        this.sslBundles = sslBundles;
+        this.finished = !properties.warmupEnabled();
+        Gauge.builder("catalog.warmup.duration", this, warmup -> warmup.durationSeconds)
+                .description("Time taken by the startup warm-up, NaN until it is finished")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    @EventListener
+    void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() == null) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    /**
+     * Spring Boot publishes ACCEPTING_TRAFFIC once every ApplicationReadyEvent listener is done.
+     * Past catalog.warmup-timeout the warm-up is finished whatever it is doing, its requests stop there.
+     */
+    @EventListener
+    void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !finished && started.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::warmUp, task -> Thread.ofPlatform()
+                            .name("catalog-warmup")
+                            .daemon()
+                            .start(task))
+                    .orTimeout(properties.warmupTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> {
+                        if (error instanceof TimeoutException) {
+                            log.warn(
+                                    "Warm-up not finished after {}, the instance is ready anyway",
+                                    properties.warmupTimeout());
+                        }
+                        finished = true;
+                    });
+        }
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        try {
+            fillConnectionPools();
+            String report = requestProducts(start + properties.warmupDuration().toNanos());
+            durationSeconds = (System.nanoTime() - start) / 1e9;
+            log.info("Warm-up finished in {} ms: {}", (System.nanoTime() - start) / 1_000_000, report);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed after {} ms", (System.nanoTime() - start) / 1_000_000, e);
+        }
+    }
+
+    /**
+     * Holds minimum idle connections of every pool at once, so that they are all opened now.
+     */
+    private void fillConnectionPools() {
+        List<HikariDataSource> pools = new ArrayList<>();
+        hikariDataSources.forEach(pools::add);
+        replicaRoutingDataSource.ifAvailable(dataSource -> pools.addAll(dataSource.getPools()));
+        for (HikariDataSource pool : pools) {
+            List<Connection> connections = new ArrayList<>(pool.getMinimumIdle());
+            try {
+                while (connections.size() < pool.getMinimumIdle()) {
+                    connections.add(pool.getConnection());
+                }
+            } catch (SQLException e) {
+                log.warn("Could not open {} connections of pool {}", pool.getMinimumIdle(), pool.getPoolName(), e);
+            } finally {
+                connections.forEach(CatalogWarmup::close);
+            }
+        }
+        otherPools.forEach(ConnectionPoolWarmup::warmUp);
+    }
+
+    /**
+     * Round-robin over the request kinds until the deadline, every kind at least once.
+     * The products by code are the ones of the pages read so far.
+     */
+    private String requestProducts(long deadline) {
+        RestClient client = restClient();
+        // the first page tells how many pages there are
+        int[] pages = {1};
+        List<String> codes = new ArrayList<>();
+        Consumer<JsonNode> addCodes = page -> page.path("data").forEach(product -> {
+            if (codes.size() < MAX_CODES) {
+                codes.add(product.path("code").asText());
+            }
+        });
+        List<WarmupRequest> requests = List.of(
+                new WarmupRequest("page", i -> "/api/products?page=" + (i % pages[0] + 1), page -> {
+                    pages[0] = Math.max(1, page.path("totalPages").asInt(1));
+                    addCodes.accept(page);
+                }),
+                new WarmupRequest(
+                        "price page",
+                        i -> "/api/products?page=" + (i % pages[0] + 1) + "&sort=PRICE_ASC&count=ESTIMATED",
+                        addCodes),
+                new WarmupRequest(
+                        "product", i -> codes.isEmpty() ? null : "/api/products/" + codes.get(i % codes.size()), null));
+        int count = 0;
+        int errors = 0;
+        do {
+            for (WarmupRequest request : requests) {
+                String uri = request.uri(count);
+                if (uri == null) {
+                    continue;
+                }
+                long requestStart = System.nanoTime();
+                try {
+                    JsonNode body = client.get()
+                            .uri(uri)
+                            .header(REQUEST_HEADER, "true")
+                            .retrieve()
+                            .body(JsonNode.class);
+                    request.answered(System.nanoTime() - requestStart, body);
+                } catch (RestClientException e) {
+                    errors++;
+                }
+            }
+            count++;
+        } while (System.nanoTime() < deadline && !finished);
+        StringBuilder report = new StringBuilder().append(errors).append(" errors");
+        requests.forEach(request -> report.append(", ").append(request));
+        return report.toString();
+    }
+
+    /**
+     * https when the server has SSL enabled, trusting its SSL bundle (server.ssl.bundle) when it has one.
+     */
+    private RestClient restClient() {
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings.defaults()
+                .withTimeouts(properties.warmupRequestTimeout(), properties.warmupRequestTimeout());
+        Ssl ssl = serverProperties.getSsl();
+        boolean https = Ssl.isEnabled(ssl);
+        if (https && ssl.getBundle() != null) {
+            settings = settings.withSslBundle(sslBundles.getObject().getBundle(ssl.getBundle()));
+        }
+        return RestClient.builder()
+                .baseUrl((https ? "https" : "http") + "://localhost:" + port)
+                .requestFactory(ClientHttpRequestFactoryBuilder.detect().build(settings))
+                .build();
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Could not return a warm-up connection", e);
+        }
+    }
+
+    /**
+     * One kind of request, with the latency of the first one and a ring of the last ones.
+     */
+    private static final class WarmupRequest {
+        private final String name;
+        private final IntFunction<String> uris;
+        private final Consumer<JsonNode> onBody;
+        private final long[] recent = new long[RECENT_LATENCIES];
+        private long first;
+        private int count;
+
+        private WarmupRequest(String name, IntFunction<String> uris, Consumer<JsonNode> onBody) {
+            this.name = name;
+            this.uris = uris;
+            this.onBody = onBody;
+        }
+
+        /**
+         * Null when there is nothing to request yet.
+         */
+        private String uri(int i) {
+            return uris.apply(i);
+        }
+
+        private void answered(long nanos, JsonNode body) {
+            if (count == 0) {
+                first = nanos;
+            } else {
+                recent[(count - 1) % RECENT_LATENCIES] = nanos;
+            }
+            count++;
+            if (onBody != null) {
+                onBody.accept(body);
+            }
+        }
+
+        /**
+         * e.g. "product 182.4 ms -> 1.3 ms (2400 requests)", the first request then the median of the last ones.
+         */
+        @Override
+        public String toString() {
+            if (count == 0) {
+                return name + " never answered";
+            }
+            long[] last =
+                    count == 1 ? new long[] {first} : Arrays.copyOf(recent, Math.min(count - 1, RECENT_LATENCIES));
+            Arrays.sort(last);
+            return String.format(
+                    "%s %.1f ms -> %.1f ms (%d requests)", name, first / 1e6, last[last.length / 2] / 1e6, count);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.louly.soft.bookstore.catalog.config;
+
+/**
+ * Opens the connections of a pool that CatalogWarmup does not know, the R2DBC pool of the reactive profile
+ * (ReactiveConnectionPoolWarmup). CatalogWarmup only knows this interface, so that the default build runs without
+ * the optional R2DBC dependencies.
+ */
+interface ConnectionPoolWarmup {
+
+    void warmUp();
+}
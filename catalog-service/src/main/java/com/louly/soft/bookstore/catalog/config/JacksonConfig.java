@@ -0,0 +1,23 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Product is annotated with @JsonFilter for the sparse fieldsets, Jackson fails on a filtered class
+ * unless a filter is registered: by default every field is written.
+ * A response with a sparse fieldset overrides the filter for that response only (see ProductController).
+ * Applied to the Boot builder, so the JSON, Smile and CBOR mappers all get it.
+ */
+@Configuration
+class JacksonConfig {
+
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer productFieldsFilterCustomizer() {
+        return builder ->
+                builder.filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Only the exchange is declared here, every consumer (gateway, webapp, order-service instances)
+ * binds its own queue with the routing keys of the events it cares about.
+ */
+@Configuration
+class RabbitMQConfig {
+
+    private final ApplicationProperties properties;
+
+    RabbitMQConfig(ApplicationProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    DirectExchange productEventsExchange() {
+        return new DirectExchange(properties.productEventsExchange());
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, ObjectMapper objectMapper) {
+        final var rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(jacksonConverter(objectMapper));
+        return rabbitTemplate;
+    }
+
+    @Bean
+    public Jackson2JsonMessageConverter jacksonConverter(ObjectMapper mapper) {
+        return new Jackson2JsonMessageConverter(mapper);
+    }
+}
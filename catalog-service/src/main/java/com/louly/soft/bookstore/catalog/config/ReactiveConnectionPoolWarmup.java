@@ -0,0 +1,25 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens the spring.r2dbc.pool.initial-size connections of the R2DBC pool during the warm-up.
+ */
+@Component
+@Profile("reactive")
+class ReactiveConnectionPoolWarmup implements ConnectionPoolWarmup {
+    private final ObjectProvider<ConnectionPool> pool;
+
+    ReactiveConnectionPoolWarmup(ObjectProvider<ConnectionPool> pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void warmUp() {
+        pool.ifAvailable(connectionPool -> connectionPool.warmup().block(Duration.ofSeconds(30)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Boot backs off its JDBC DataSource as soon as an R2DBC ConnectionFactory exists,
+ * so the reactive profile declares it: JPA, Flyway, the in-memory indexes and the jobs keep using JDBC.
+ * Same spring.datasource and spring.datasource.hikari settings as the default profile.
+ * Replica routing (ReplicaRoutingConfig) is not supported with the reactive profile.
+ */
+@Configuration
+@Profile("reactive")
+@ConditionalOnProperty(
+        prefix = "catalog",
+        name = "replica-routing-enabled",
+        havingValue = "false",
+        matchIfMissing = true)
+class ReactiveDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource dataSource(ObjectProvider<JdbcConnectionDetails> connectionDetails, Environment environment) {
+        // a service connection (Testcontainers, Docker Compose) wins over spring.datasource
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable(() -> new JdbcConnectionDetails() {
+            @Override
+            public String getUsername() {
+                return environment.getProperty("spring.datasource.username");
+            }
+
+            @Override
+            public String getPassword() {
+                return environment.getProperty("spring.datasource.password");
+            }
+
+            @Override
+            public String getJdbcUrl() {
+                return environment.getRequiredProperty("spring.datasource.url");
+            }
+        });
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(details.getJdbcUrl());
+        dataSource.setUsername(details.getUsername());
+        dataSource.setPassword(details.getPassword());
+        dataSource.setDriverClassName(details.getDriverClassName());
+        return dataSource;
+    }
+}
@@ -0,0 +1,80 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Sends the read-only transactions (ProductService, suggestion index loads) to the replicas listed in
+ * catalog.replica-urls, everything else (writes, Flyway) keeps using spring.datasource.
+ * The LazyConnectionDataSourceProxy only fetches the real connection on the first statement,
+ * after the transaction manager has flagged it read-only, which is what selects the replica DataSource.
+ * Replicas use the spring.datasource username/password and spring.datasource.hikari settings.
+ * Every pool reports the hikaricp.* metrics, tagged with its pool name (primary, replica-1, ...).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "catalog", name = "replica-routing-enabled", havingValue = "true")
+class ReplicaRoutingConfig {
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(
+            JdbcConnectionDetails connectionDetails,
+            ApplicationProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        if (properties.replicaUrls().isEmpty()) {
+            throw new IllegalStateException(
+                    "catalog.replica-routing-enabled requires at least one catalog.replica-urls");
+        }
+        HikariDataSource primary =
+                createPool("primary", connectionDetails.getJdbcUrl(), connectionDetails, environment, meterRegistry);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : properties.replicaUrls()) {
+            HikariDataSource replica =
+                    createPool("replica-" + (replicas.size() + 1), url, connectionDetails, environment, meterRegistry);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(
+                primary, replicas, properties.replicaSelection(), properties.replicaMaxLag(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    LazyConnectionDataSourceProxy dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(replicaRoutingDataSource.getPrimary());
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    private static HikariDataSource createPool(
+            String poolName,
+            String url,
+            JdbcConnectionDetails connectionDetails,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setUsername(connectionDetails.getUsername());
+        config.setPassword(connectionDetails.getPassword());
+        config.setDriverClassName(connectionDetails.getDriverClassName());
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,284 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * DataSource of the read-only transactions: hands out connections of one of the replicas
+ * which are not lagging behind the primary by more than catalog.replica-max-lag,
+ * or of the primary when no replica is available.
+ * A replica is only used once checkLag() has seen it in time, and is dropped as soon as a check fails.
+ * The lag is measured against the primary: every check reads the WAL position of the primary, and the lag of a
+ * replica is the time since the primary was at the position the replica has replayed. A replica which stopped
+ * receiving WAL looks in time to itself (it has replayed everything it received), so it must also be streaming.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY_POSITION_QUERY = "select pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')";
+
+    /**
+     * Replayed WAL position and WAL receiver status (no row when there is no receiver, 'unknown' when the user cannot
+     * read it: it needs the pg_read_all_stats role). A server out of recovery is the primary itself or was promoted,
+     * its own WAL position is used.
+     */
+    private static final String REPLICA_POSITION_QUERY =
+            """
+            select pg_is_in_recovery(),
+                pg_wal_lsn_diff(
+                    case when pg_is_in_recovery() then pg_last_wal_replay_lsn() else pg_current_wal_lsn() end, '0/0'),
+                (select coalesce(status, 'unknown') from pg_stat_wal_receiver)
+            """;
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final Duration maxLag;
+    private final LongSupplier nanoTime;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryFallbacks;
+    // positions of the primary seen by the last checks, oldest first, only used by checkLag()
+    private final Deque<WalPosition> primaryPositions = new ArrayDeque<>();
+
+    public ReplicaRoutingDataSource(
+            HikariDataSource primary,
+            List<HikariDataSource> replicas,
+            ReplicaSelection selection,
+            Duration maxLag,
+            MeterRegistry meterRegistry) {
+        this(primary, replicas, selection, maxLag, meterRegistry, System::nanoTime);
+    }
+
+    ReplicaRoutingDataSource(
+            HikariDataSource primary,
+            List<HikariDataSource> replicas,
+            ReplicaSelection selection,
+            Duration maxLag,
+            MeterRegistry meterRegistry,
+            LongSupplier nanoTime) {
+        this.primary = primary;
+        this.nanoTime = nanoTime;
+        this.selection = selection;
+        this.maxLag = maxLag;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("catalog.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description(
+                            "Replay lag of the replica behind the primary (an upper bound, to the check interval), NaN when "
+                                    + "it cannot be measured")
+                    .baseUnit("seconds")
+                    .tag("pool", dataSource.getPoolName())
+                    .register(meterRegistry);
+            Gauge.builder("catalog.datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("1 when read-only transactions can be routed to the replica")
+                    .tag("pool", dataSource.getPoolName())
+                    .register(meterRegistry);
+        }
+        this.primaryFallbacks = Counter.builder("catalog.datasource.replica.fallbacks")
+                .description("Read-only connections served by the primary because no replica was available")
+                .register(meterRegistry);
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * The primary pool first, then the replica pools.
+     */
+    public List<HikariDataSource> getPools() {
+        List<HikariDataSource> pools = new ArrayList<>(replicas.size() + 1);
+        pools.add(primary);
+        replicas.forEach(replica -> pools.add(replica.dataSource));
+        return pools;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return select().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return select().getConnection(username, password);
+    }
+
+    DataSource select() {
+        Replica replica = selection == ReplicaSelection.ROUND_ROBIN ? roundRobin() : leastConnections();
+        if (replica == null) {
+            primaryFallbacks.increment();
+            return primary;
+        }
+        return replica.dataSource;
+    }
+
+    private Replica roundRobin() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica leastConnections() {
+        Replica best = null;
+        int bestActive = Integer.MAX_VALUE;
+        for (Replica replica : replicas) {
+            if (replica.available) {
+                int active = replica.activeConnections();
+                if (active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Measures the lag of every replica and updates which ones can be used. Called by one thread at a time.
+     * The lag is known to the resolution of the checks: a replica behind the position just read from the primary
+     * lags by at most the time since the last check which saw the primary at or before its position. A replica
+     * behind every position kept (the first checks, or lagging by more than catalog.replica-max-lag) is unavailable.
+     */
+    public void checkLag() {
+        long now = nanoTime.getAsLong();
+        recordPrimaryPosition(now);
+        double maxLagSeconds = maxLag.toMillis() / 1000.0;
+        for (Replica replica : replicas) {
+            boolean available;
+            String reason;
+            try (Connection connection = replica.dataSource.getConnection();
+                    Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(REPLICA_POSITION_QUERY)) {
+                resultSet.next();
+                boolean inRecovery = resultSet.getBoolean(1);
+                long replayed = resultSet.getLong(2);
+                String receiver = resultSet.getString(3);
+                Lag lag = lag(replayed, now);
+                replica.lagSeconds = lag.seconds();
+                if (inRecovery && !"streaming".equals(receiver)) {
+                    available = false;
+                    reason = switch (receiver) {
+                        case null -> "no WAL receiver";
+                        case "unknown" -> "WAL receiver status not readable without pg_read_all_stats";
+                        default -> "WAL receiver " + receiver;
+                    };
+                } else {
+                    available = lag.bounded() && lag.seconds() <= maxLagSeconds;
+                    reason = lag.bounded() ? "lag " + lag.seconds() + "s" : "behind the primary positions kept";
+                }
+            } catch (SQLException e) {
+                replica.lagSeconds = Double.NaN;
+                available = false;
+                reason = "check failed";
+                log.warn("Lag check of {} failed: {}", replica.dataSource.getPoolName(), e.getMessage());
+            }
+            if (available != replica.available) {
+                log.info(
+                        "Replica {} is now {} ({})",
+                        replica.dataSource.getPoolName(),
+                        available ? "available" : "unavailable",
+                        reason);
+            }
+            replica.available = available;
+        }
+    }
+
+    /**
+     * Keeps the positions of the last catalog.replica-max-lag, and the last one before: a replica which has not
+     * replayed it lags by more than the max lag anyway. Nothing is recorded when the primary cannot be read, the
+     * replicas then fall behind the positions kept.
+     */
+    private void recordPrimaryPosition(long now) {
+        try (Connection connection = primary.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(PRIMARY_POSITION_QUERY)) {
+            resultSet.next();
+            primaryPositions.addLast(new WalPosition(now, resultSet.getLong(1)));
+        } catch (SQLException e) {
+            log.warn("Could not read the WAL position of the primary: {}", e.getMessage());
+        }
+        while (primaryPositions.size() > 1 && now - secondOldestPosition().nanos() > maxLag.toNanos()) {
+            primaryPositions.removeFirst();
+        }
+    }
+
+    private WalPosition secondOldestPosition() {
+        Iterator<WalPosition> positions = primaryPositions.iterator();
+        positions.next();
+        return positions.next();
+    }
+
+    /**
+     * 0 when the replica has replayed the position of the primary read by this check, otherwise the time since the
+     * last check which saw the primary at or before its position. When it is behind all of them, the time since the
+     * oldest one (a lower bound, NaN without any) and not bounded.
+     */
+    private Lag lag(long replayed, long now) {
+        Iterator<WalPosition> positions = primaryPositions.descendingIterator();
+        while (positions.hasNext()) {
+            WalPosition position = positions.next();
+            if (position.lsn() <= replayed) {
+                return new Lag(position.nanos() == now ? 0 : (now - position.nanos()) / 1e9, true);
+            }
+        }
+        return new Lag(
+                primaryPositions.isEmpty()
+                        ? Double.NaN
+                        : (now - primaryPositions.getFirst().nanos()) / 1e9,
+                false);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private record WalPosition(long nanos, long lsn) {}
+
+    private record Lag(double seconds, boolean bounded) {}
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean available;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private int activeConnections() {
+            // the pool is started by its first getConnection()
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.louly.soft.bookstore.catalog.config;
+
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    LEAST_CONNECTIONS
+}
@@ -0,0 +1,80 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate second-level cache backed by Caffeine through JCache, enabled with catalog.second-level-cache-enabled.
+ * Regions:
+ * <ul>
+ *   <li>catalog.products: the ProductEntity instances by id (catalog.product-cache-*)</li>
+ *   <li>catalog.product-queries: the results of the cacheable ProductRepository queries (catalog.product-query-cache-*)</li>
+ *   <li>default-update-timestamps-region: last change of every table, a cached query result older than
+ *   the last change of the products table is ignored, so it never expires nor gets evicted</li>
+ * </ul>
+ * Hibernate statistics are turned on as well, Boot exports them as the hibernate.* metrics.
+ * The cache manager is one of this application context, not the JVM-wide default one: two contexts (tests) would
+ * otherwise try to create the same caches. When disabled, application.yml turns the caches off, as Hibernate would
+ * otherwise pick JCache up from the classpath for the @Cache entity, with unbounded caches.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "catalog", name = "second-level-cache-enabled", havingValue = "true")
+class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(ApplicationProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(
+                        URI.create("catalog-second-level-cache-" + UUID.randomUUID()),
+                        SecondLevelCacheConfig.class.getClassLoader());
+        cacheManager.createCache(
+                "catalog.products", configuration(properties.productCacheMaxSize(), properties.productCacheTtl()));
+        cacheManager.createCache(
+                "catalog.product-queries",
+                configuration(properties.productQueryCacheMaxSize(), properties.productQueryCacheTtl()));
+        // created by Hibernate even though every cacheable query names its region
+        cacheManager.createCache(
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                configuration(properties.productQueryCacheMaxSize(), properties.productQueryCacheTtl()));
+        cacheManager.createCache(
+                RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    /**
+     * Store by reference: Hibernate already keeps disassembled copies in the cache, no need to serialize them again.
+     */
+    private static CaffeineConfiguration<Object, Object> configuration(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,26 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "warmup" health, part of the readiness group (management.endpoint.health.group.readiness):
+ * OUT_OF_SERVICE while CatalogWarmup runs, so no traffic is routed to the instance before it is warm.
+ */
+@Component
+class WarmupHealthIndicator implements HealthIndicator {
+
+    private final CatalogWarmup catalogWarmup;
+
+    WarmupHealthIndicator(CatalogWarmup catalogWarmup) {
+        this.catalogWarmup = catalogWarmup;
+    }
+
+    @Override
+    public Health health() {
+        return catalogWarmup.isFinished()
+                ? Health.up().build()
+                : Health.outOfService().build();
+    }
+}
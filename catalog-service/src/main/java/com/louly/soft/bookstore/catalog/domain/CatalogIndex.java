@@ -0,0 +1,13 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * In-memory view of the catalog kept by a service (snapshot, suggestion, facet, similarity, code filter, popular
+ * ranking), rebuilt by CatalogIndexRefresher after the changes made by this instance.
+ */
+interface CatalogIndex {
+
+    /**
+     * Rebuilds the view from the database and swaps it in, readers keep the previous one until then.
+     */
+    void reload();
+}
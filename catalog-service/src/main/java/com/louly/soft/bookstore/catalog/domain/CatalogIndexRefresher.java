@@ -0,0 +1,64 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Rebuilds every CatalogIndex after the changes made by this instance, off the thread which committed them:
+ * a ProductsChangedEvent only schedules one rebuild catalog.index-refresh-delay later, and the events published
+ * until it starts (the other imports and deletes of a burst) are folded into it.
+ * The rebuilds run one after the other on a single thread, an event arriving during one schedules the next.
+ */
+@Component
+class CatalogIndexRefresher {
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexRefresher.class);
+
+    private final List<CatalogIndex> indexes;
+    private final ApplicationProperties properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("catalog-index-refresh").daemon().factory());
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    CatalogIndexRefresher(List<CatalogIndex> indexes, ApplicationProperties properties) {
+        this.indexes = indexes;
+        this.properties = properties;
+    }
+
+    /**
+     * Runs once the change is committed (or right away when published outside of a transaction).
+     */
+    @TransactionalEventListener(classes = ProductsChangedEvent.class, fallbackExecution = true)
+    void onProductsChanged() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::reloadAll, properties.indexRefreshDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reloadAll() {
+        // the changes committed from now on are not necessarily seen by this run, they schedule the next one
+        scheduled.set(false);
+        long start = System.nanoTime();
+        for (CatalogIndex index : indexes) {
+            try {
+                index.reload();
+            } catch (RuntimeException e) {
+                log.warn("Could not reload {}, its scheduled refresh will retry", index, e);
+            }
+        }
+        log.debug("Reloaded {} catalog indexes in {} ms", indexes.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
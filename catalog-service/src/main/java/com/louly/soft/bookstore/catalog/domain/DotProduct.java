@@ -0,0 +1,25 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * Dot product of two vectors stored in flat float arrays.
+ * The SIMD implementation needs the jdk.incubator.vector module (--add-modules jdk.incubator.vector),
+ * without it the scalar one is used.
+ */
+interface DotProduct {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    static DotProduct best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded by name so the vector classes are never resolved when the module is missing
+                return (DotProduct) Class.forName(DotProduct.class.getPackageName() + ".VectorDotProduct")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarDotProduct();
+            }
+        }
+        return new ScalarDotProduct();
+    }
+}
@@ -0,0 +1,3 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+public record FacetValueCount(String value, int count) {}
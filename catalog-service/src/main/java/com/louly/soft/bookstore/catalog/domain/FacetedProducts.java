@@ -0,0 +1,10 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of the products matching the selected facet values, and the count of every facet value
+ * (category, author, price) given the selection on the other facets.
+ */
+public record FacetedProducts(PagedResult<Product> products, Map<String, List<FacetValueCount>> facets) {}
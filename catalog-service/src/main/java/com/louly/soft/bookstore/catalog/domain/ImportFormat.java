@@ -0,0 +1,6 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
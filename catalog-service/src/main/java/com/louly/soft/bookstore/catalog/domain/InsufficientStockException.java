@@ -0,0 +1,16 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+
+    public static InsufficientStockException forReservation(String code, long quantity) {
+        return new InsufficientStockException("Not enough stock of product " + code + " to reserve " + quantity);
+    }
+
+    public static InsufficientStockException forReservedQuantity(String code, long quantity, long reserved) {
+        return new InsufficientStockException(
+                "Stock of product " + code + " cannot be set to " + quantity + ", " + reserved + " are reserved");
+    }
+}
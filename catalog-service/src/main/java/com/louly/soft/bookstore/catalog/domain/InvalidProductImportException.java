@@ -0,0 +1,11 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+public class InvalidProductImportException extends RuntimeException {
+    public InvalidProductImportException(String message) {
+        super(message);
+    }
+
+    public static InvalidProductImportException forRow(long rowNumber, String reason) {
+        return new InvalidProductImportException("Invalid import data at row " + rowNumber + ": " + reason);
+    }
+}
@@ -0,0 +1,43 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.math.BigDecimal;
+
+public class InvalidProductQueryException extends RuntimeException {
+    public InvalidProductQueryException(String message) {
+        super(message);
+    }
+
+    public static InvalidProductQueryException forCursor(String cursor) {
+        return new InvalidProductQueryException("Invalid pagination cursor: " + cursor);
+    }
+
+    public static InvalidProductQueryException forTooManyCodes(int count, int max) {
+        return new InvalidProductQueryException(
+                "Too many product codes requested: " + count + ", the maximum is " + max);
+    }
+
+    public static InvalidProductQueryException forEmptySearch() {
+        return new InvalidProductQueryException("Search query is required");
+    }
+
+    public static InvalidProductQueryException forPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return new InvalidProductQueryException(
+                "minPrice " + minPrice + " must not be greater than maxPrice " + maxPrice);
+    }
+
+    public static InvalidProductQueryException forUnsupportedCombination(String filter, ProductSort sort) {
+        return new InvalidProductQueryException("Filter " + filter + " is not supported with sort " + sort);
+    }
+
+    public static InvalidProductQueryException forUnknownField(String field) {
+        return new InvalidProductQueryException("Unknown product field: " + field);
+    }
+
+    public static InvalidProductQueryException forUnsupportedParameter(String parameter) {
+        return new InvalidProductQueryException("Query parameter " + parameter + " is not supported by this endpoint");
+    }
+
+    public static InvalidProductQueryException forCursorWithQuery() {
+        return new InvalidProductQueryException("Cursor pagination does not support filters or sort");
+    }
+}
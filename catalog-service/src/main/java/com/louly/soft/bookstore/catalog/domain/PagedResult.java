@@ -1,7 +1,14 @@
 package com.louly.soft.bookstore.catalog.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 
+/**
+ * nextCursor and prevCursor are only filled for keyset (cursor) pagination,
+ * for the classic page number pagination they are null and not serialized at all.
+ * With cursor pagination the totals are not computed, so they are set to UNKNOWN.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PagedResult<T>(
         List<T> data,
         long totalElements,
@@ -10,4 +17,9 @@ public record PagedResult<T>(
         boolean isFirst,
         boolean isLast,
         boolean hasNext,
-        boolean hasPrevious) {}
+        boolean hasPrevious,
+        String nextCursor,
+        String prevCursor) {
+
+    public static final int UNKNOWN = -1;
+}
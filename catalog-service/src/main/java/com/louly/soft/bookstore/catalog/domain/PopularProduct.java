@@ -0,0 +1,3 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+public record PopularProduct(String code, String name, long views) {}
@@ -0,0 +1,68 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable top-N of the most viewed products, most viewed first.
+ * A new ranking is computed from the current one and the fresh totals of the products just flushed
+ * with a min-heap of size N, so the cost depends on N and the number of updated products, not on the catalog size.
+ */
+final class PopularityRanking {
+    private static final Comparator<PopularProduct> MOST_VIEWED_FIRST =
+            Comparator.comparingLong(PopularProduct::views).reversed().thenComparing(PopularProduct::code);
+
+    private final List<PopularProduct> products;
+
+    private PopularityRanking(List<PopularProduct> products) {
+        this.products = products;
+    }
+
+    static PopularityRanking empty() {
+        return new PopularityRanking(List.of());
+    }
+
+    /**
+     * The products must already be the top-N, most viewed first.
+     */
+    static PopularityRanking of(List<PopularProduct> products) {
+        return new PopularityRanking(List.copyOf(products));
+    }
+
+    List<PopularProduct> top(int limit) {
+        return products.subList(0, Math.min(limit, products.size()));
+    }
+
+    int size() {
+        return products.size();
+    }
+
+    /**
+     * The updated totals replace the ones already in the ranking, totals only grow so nothing outside
+     * the current top-N and the updated products can be part of the new top-N.
+     */
+    PopularityRanking merge(List<PopularProduct> updated, int size) {
+        Map<String, PopularProduct> candidates = new HashMap<>();
+        for (PopularProduct product : products) {
+            candidates.put(product.code(), product);
+        }
+        for (PopularProduct product : updated) {
+            candidates.put(product.code(), product);
+        }
+        // least viewed on top of the heap, evicted as soon as the heap holds more than size products
+        PriorityQueue<PopularProduct> heap = new PriorityQueue<>(size + 1, MOST_VIEWED_FIRST.reversed());
+        for (PopularProduct product : candidates.values()) {
+            heap.offer(product);
+            if (heap.size() > size) {
+                heap.poll();
+            }
+        }
+        List<PopularProduct> top = new ArrayList<>(heap);
+        top.sort(MOST_VIEWED_FIRST);
+        return new PopularityRanking(List.copyOf(top));
+    }
+}
@@ -1,5 +1,23 @@
 package com.louly.soft.bookstore.catalog.domain;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 
-public record Product(String code, String name, String description, String imageUrl, BigDecimal price) {}
+/**
+ * version is not part of the API payload, it is only used to compute the ETag of the product.
+ * With a sparse fieldset (see ProductField) the fields left out are null and the FIELDS_FILTER skips them.
+ */
+@JsonFilter(Product.FIELDS_FILTER)
+public record Product(
+        String code,
+        String name,
+        String description,
+        String imageUrl,
+        BigDecimal price,
+        String category,
+        String author,
+        @JsonIgnore Long version) {
+
+    public static final String FIELDS_FILTER = "productFields";
+}
@@ -0,0 +1,8 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Lightweight projection used to build the in-memory facet index.
+ */
+record ProductAttributes(String code, String category, String author, BigDecimal price) {}
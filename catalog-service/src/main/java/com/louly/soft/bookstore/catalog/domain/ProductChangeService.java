@@ -0,0 +1,77 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Change feed of the catalog for the clients keeping a copy of it (delta sync).
+ * Triggers stamp every written product with the next change_seq and leave a tombstone for every deleted one
+ * (see V11 migration), so a sync is two index range scans on change_seq merged in order, whatever the catalog size.
+ */
+@Service
+public class ProductChangeService {
+
+    /**
+     * Both branches are read from their change_seq index, already in order, and merged up to the limit.
+     */
+    private static final String SELECT_CHANGES =
+            """
+            (select change_seq, code, name, description, image_url, price, category, author, version, false as deleted
+             from products where change_seq > ? order by change_seq limit ?)
+            union all
+            (select change_seq, code, null, null, null, null, null, null, null, true
+             from product_tombstones where change_seq > ? order by change_seq limit ?)
+            order by change_seq
+            limit ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties properties;
+
+    ProductChangeService(JdbcTemplate jdbcTemplate, ApplicationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * @param since change_seq of the last change already synced, 0 for a full sync
+     */
+    @Transactional(readOnly = true)
+    public ProductChanges getChanges(long since) {
+        int maxResults = properties.changesMaxResults();
+        // one more row than returned tells if there are more changes
+        int limit = maxResults + 1;
+        ResultSetExtractor<ProductChanges> extractor = rs -> {
+            List<Product> products = new ArrayList<>();
+            List<String> deletedCodes = new ArrayList<>();
+            long nextSince = since;
+            int rows = 0;
+            while (rs.next()) {
+                if (++rows > maxResults) {
+                    return new ProductChanges(products, deletedCodes, nextSince, true);
+                }
+                nextSince = rs.getLong("change_seq");
+                if (rs.getBoolean("deleted")) {
+                    deletedCodes.add(rs.getString("code"));
+                } else {
+                    products.add(new Product(
+                            rs.getString("code"),
+                            rs.getString("name"),
+                            rs.getString("description"),
+                            rs.getString("image_url"),
+                            rs.getBigDecimal("price"),
+                            rs.getString("category"),
+                            rs.getString("author"),
+                            rs.getLong("version")));
+                }
+            }
+            return new ProductChanges(products, deletedCodes, nextSince, false);
+        };
+        return jdbcTemplate.query(SELECT_CHANGES, extractor, since, limit, since, limit, limit);
+    }
+}
@@ -0,0 +1,10 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.List;
+
+/**
+ * Products created or updated and codes deleted after a change sequence, in change order.
+ * The next request passes nextSince, hasMore tells that it has more changes right away.
+ * nextSince is the since of the request when nothing changed.
+ */
+public record ProductChanges(List<Product> products, List<String> deletedCodes, long nextSince, boolean hasMore) {}
@@ -0,0 +1,106 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Immutable Bloom filter of the product codes: mightContain(code) is false only for codes that are certainly not
+ * in the catalog, and true for the known codes plus a small share of the unknown ones (the false positive rate).
+ * Sized for the false positive rate requested, about 9.6 bits per code for 1% (1.2 MB for a million codes).
+ * The k bit positions of a code are derived from two 64-bit hashes (Kirsch-Mitzenmacher double hashing),
+ * so a lookup hashes the code once whatever k is.
+ */
+final class ProductCodeFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final long[] words;
+    private final long bits;
+    private final int hashes;
+    private final int size;
+
+    private ProductCodeFilter(long[] words, int hashes, int size) {
+        this.words = words;
+        this.bits = (long) words.length * Long.SIZE;
+        this.hashes = hashes;
+        this.size = size;
+    }
+
+    static ProductCodeFilter build(Collection<String> codes, double falsePositiveRate) {
+        int size = codes.size();
+        // optimal number of bits m = -n ln(p) / ln(2)^2 and of hashes k = m/n ln(2)
+        long bits =
+                Math.max(Long.SIZE, (long) Math.ceil(-Math.max(size, 1) * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / Math.max(size, 1) * LN2));
+        ProductCodeFilter filter =
+                new ProductCodeFilter(new long[Math.toIntExact(Math.ceilDiv(bits, Long.SIZE))], hashes, size);
+        codes.forEach(filter::add);
+        return filter;
+    }
+
+    /**
+     * A copy holding these codes as well, with the same bit array size: the false positive rate grows with the codes
+     * added (see expectedFalsePositiveRate) until the filter is built again.
+     */
+    ProductCodeFilter withCodes(Collection<String> codes) {
+        ProductCodeFilter filter = new ProductCodeFilter(words.clone(), hashes, size + codes.size());
+        codes.forEach(filter::add);
+        return filter;
+    }
+
+    boolean mightContain(String code) {
+        long hash1 = hash(code);
+        long hash2 = mix(hash1 ^ 0x9E37_79B9_7F4A_7C15L);
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * (1 - e^(-kn/m))^k, what the filter gives for unknown codes once it holds its codes.
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashes * size / bits), hashes);
+    }
+
+    private void add(String code) {
+        long hash1 = hash(code);
+        long hash2 = mix(hash1 ^ 0x9E37_79B9_7F4A_7C15L);
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, spread by the murmur3 finalizer (FNV alone leaves the high bits poor for short codes).
+     */
+    private static long hash(String code) {
+        long hash = 0xcbf2_9ce4_8422_2325L;
+        for (byte b : code.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x1000_0000_01b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51_afd7_ed55_8ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ce_b9fe_1a85_ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,206 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional Bloom filter of the product codes (catalog.code-filter-enabled), so the lookups of unknown codes
+ * (bots, stale carts) get their 404 without touching the database.
+ * Every code of the catalog passes, so a known product is never refused, only the rare false positives still
+ * reach the database. The filter knows the last change_seq of the rows it was built from: the products written by
+ * this instance are added to it right after their commit (ProductsChangedEvent), on the committing thread, so they are
+ * found as soon as the write returns. The products written by another instance or with plain SQL are refused until
+ * the next check of the products table fingerprint (its last change_seq), every catalog.code-filter-refresh-interval,
+ * which rebuilds the filter, dropping the deleted codes. The filter is rebuilt off the request and committing threads
+ * too (CatalogIndexRefresher) shortly after a change made here, which also restores its false positive rate once the
+ * added codes degraded it.
+ * Until the filter is loaded every code passes.
+ */
+@Service
+public class ProductCodeFilterService implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductCodeFilterService.class);
+
+    /**
+     * Products written after the given change_seq, all of them from 0. The writers commit in change_seq order
+     * (see V11 migration), so every product up to the last change_seq read is in the result.
+     */
+    private static final String SELECT_CODES_CHANGED_SINCE =
+            "select code, change_seq from products where change_seq > ?";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties properties;
+    private final AtomicReference<LoadedFilter> loaded = new AtomicReference<>();
+    private final AtomicReference<ProductSnapshotVersion> version = new AtomicReference<>();
+    private final Counter rejected;
+    private final Counter falsePositives;
+
+    ProductCodeFilterService(
+            ProductRepository productRepository,
+            JdbcTemplate jdbcTemplate,
+            ApplicationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.rejected = Counter.builder("catalog.code.filter.rejected")
+                .description("Lookups of unknown product codes answered by the Bloom filter without the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("catalog.code.filter.false.positives")
+                .description("Lookups passed by the Bloom filter that found no product in the database")
+                .register(meterRegistry);
+        if (properties.codeFilterEnabled()) {
+            Gauge.builder("catalog.code.filter.false.positive.rate", this, ProductCodeFilterService::falsePositiveRate)
+                    .description("Share of the lookups of unknown product codes that the Bloom filter let through")
+                    .register(meterRegistry);
+            Gauge.builder(
+                            "catalog.code.filter.products",
+                            loaded,
+                            f -> f.get() == null ? 0 : f.get().filter().size())
+                    .description("Number of product codes in the Bloom filter")
+                    .register(meterRegistry);
+            Gauge.builder(
+                            "catalog.code.filter.memory",
+                            loaded,
+                            f -> f.get() == null ? 0 : f.get().filter().sizeInBytes())
+                    .description("Size of the bit array of the Bloom filter")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * False when there is certainly no product with this code, answered from memory.
+     */
+    public boolean mightExist(String code) {
+        LoadedFilter current = loaded.get();
+        if (current == null || current.filter().mightContain(code)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Called when a code passed by mightExist was not found.
+     */
+    public void recordFalsePositive() {
+        if (loaded.get() != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * The products written since the filter was built are read from the primary (read-write transaction, one
+     * change_seq index range). A failure only delays them until the next rebuild.
+     */
+    @TransactionalEventListener(classes = ProductsChangedEvent.class, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onProductsChanged() {
+        if (!properties.codeFilterEnabled() || loaded.get() == null) {
+            return;
+        }
+        try {
+            catchUp(null);
+        } catch (RuntimeException e) {
+            log.warn("Could not add the products written here to the code filter, the next rebuild will", e);
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        if (!properties.codeFilterEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ProductSnapshotVersion loadedVersion = productRepository.findSnapshotVersion();
+        ChangedCodes codes = findCodesChangedSince(0);
+        ProductCodeFilter rebuilt = ProductCodeFilter.build(codes.codes(), properties.codeFilterFalsePositiveRate());
+        // every product up to the fingerprint read first is in the scan, even when the last ones were deleted
+        catchUp(new LoadedFilter(rebuilt, Math.max(codes.lastChangeSeq(), loadedVersion.lastChangeSeq())));
+        version.set(loadedVersion);
+        log.info(
+                "Built product code filter with {} codes ({} KB, expected false positive rate {}) in {} ms",
+                rebuilt.size(),
+                rebuilt.sizeInBytes() / 1024,
+                String.format("%.4f", rebuilt.expectedFalsePositiveRate()),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional(readOnly = true)
+    public void refresh() {
+        if (properties.codeFilterEnabled()
+                && !productRepository.findSnapshotVersion().equals(version.get())) {
+            reload();
+        }
+    }
+
+    /**
+     * Swaps in the given filter, or the current one, with the products written since it was built.
+     * Retried when the filter was swapped meanwhile: the codes added by the other swap were committed before it,
+     * so the retry reads them again, a rebuild never drops the codes added by a commit.
+     * A rebuilt filter older than the current one (read from a lagging replica) is dropped.
+     */
+    private void catchUp(LoadedFilter rebuilt) {
+        LoadedFilter base = rebuilt;
+        LoadedFilter current;
+        LoadedFilter caughtUp;
+        do {
+            current = loaded.get();
+            if (base != null && current != null && base.lastChangeSeq() < current.lastChangeSeq()) {
+                log.debug("Dropped a code filter rebuilt from a lagging replica");
+                return;
+            }
+            LoadedFilter from = base == null ? current : base;
+            ChangedCodes changed = findCodesChangedSince(from.lastChangeSeq());
+            caughtUp = changed.codes().isEmpty()
+                    ? from
+                    : new LoadedFilter(from.filter().withCodes(changed.codes()), changed.lastChangeSeq());
+            if (caughtUp == current) {
+                return;
+            }
+            base = rebuilt == null ? null : caughtUp;
+        } while (!loaded.compareAndSet(current, caughtUp));
+    }
+
+    private ChangedCodes findCodesChangedSince(long since) {
+        List<String> codes = new ArrayList<>();
+        long[] lastChangeSeq = {since};
+        RowCallbackHandler handler = rs -> {
+            codes.add(rs.getString("code"));
+            lastChangeSeq[0] = Math.max(lastChangeSeq[0], rs.getLong("change_seq"));
+        };
+        jdbcTemplate.query(SELECT_CODES_CHANGED_SINCE, handler, since);
+        return new ChangedCodes(codes, lastChangeSeq[0]);
+    }
+
+    private double falsePositiveRate() {
+        double passed = falsePositives.count();
+        double unknown = passed + rejected.count();
+        return unknown == 0 ? 0 : passed / unknown;
+    }
+
+    /**
+     * The filter and the last change_seq of the products it holds.
+     */
+    private record LoadedFilter(ProductCodeFilter filter, long lastChangeSeq) {}
+
+    private record ChangedCodes(List<String> codes, long lastChangeSeq) {}
+}
@@ -0,0 +1,41 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps the number of products in memory so the ESTIMATED count mode never runs a count(*) per request.
+ * The value is refreshed in the background by ProductCountRefreshJob.
+ * For big tables it comes from the planner statistics (pg_class.reltuples) which is almost free,
+ * for small or never analyzed tables an exact count is cheap enough.
+ */
+@Component
+public class ProductCountCache {
+    private static final Logger log = LoggerFactory.getLogger(ProductCountCache.class);
+    private static final long EXACT_COUNT_THRESHOLD = 100_000;
+
+    private final ProductRepository productRepository;
+    private final AtomicLong count = new AtomicLong(-1);
+
+    ProductCountCache(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    long getCount() {
+        long current = count.get();
+        return current >= 0 ? current : refresh();
+    }
+
+    @Transactional(readOnly = true)
+    public long refresh() {
+        // reltuples is -1 when the table has never been vacuumed or analyzed
+        long estimate = productRepository.estimateCount();
+        long total = estimate < EXACT_COUNT_THRESHOLD ? productRepository.count() : estimate;
+        count.set(total);
+        log.debug("Refreshed products count: {} (estimate: {})", total, estimate);
+        return total;
+    }
+}
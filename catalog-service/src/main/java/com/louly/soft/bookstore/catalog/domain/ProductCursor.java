@@ -0,0 +1,49 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a keyset (seek) page over the products ordered by (name, id).
+ * The cursor is handed to the client as an opaque Base64 URL safe string,
+ * so clients never build it themselves, they only pass back nextCursor/prevCursor.
+ */
+record ProductCursor(Direction direction, String name, long id) {
+
+    enum Direction {
+        NEXT,
+        PREVIOUS
+    }
+
+    private static final String SEPARATOR = ":";
+
+    static ProductCursor next(ProductEntity product) {
+        return new ProductCursor(Direction.NEXT, product.getName(), product.getId());
+    }
+
+    static ProductCursor previous(ProductEntity product) {
+        return new ProductCursor(Direction.PREVIOUS, product.getName(), product.getId());
+    }
+
+    String encode() {
+        String raw = direction.name().charAt(0) + SEPARATOR + id + SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // the name can contain the separator, so it is always the last part
+            String[] parts = raw.split(SEPARATOR, 3);
+            Direction direction =
+                    switch (parts[0]) {
+                        case "N" -> Direction.NEXT;
+                        case "P" -> Direction.PREVIOUS;
+                        default -> throw InvalidProductQueryException.forCursor(cursor);
+                    };
+            return new ProductCursor(direction, parts[2], Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw InvalidProductQueryException.forCursor(cursor);
+        }
+    }
+}
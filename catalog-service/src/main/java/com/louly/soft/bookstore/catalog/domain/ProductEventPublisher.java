@@ -0,0 +1,39 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.domain.models.ProductCreatedEvent;
+import com.louly.soft.bookstore.catalog.domain.models.ProductDeletedEvent;
+import com.louly.soft.bookstore.catalog.domain.models.ProductPriceChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+class ProductEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(ProductEventPublisher.class);
+    private final RabbitTemplate rabbitTemplate;
+    private final ApplicationProperties properties;
+
+    ProductEventPublisher(RabbitTemplate rabbitTemplate, ApplicationProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+    }
+
+    public void publish(ProductCreatedEvent event) {
+        send(properties.productCreatedRoutingKey(), event);
+    }
+
+    public void publish(ProductPriceChangedEvent event) {
+        send(properties.productPriceChangedRoutingKey(), event);
+    }
+
+    public void publish(ProductDeletedEvent event) {
+        send(properties.productDeletedRoutingKey(), event);
+    }
+
+    private void send(String routingKey, Object payload) {
+        log.debug("Send Event routingKey {}. and payload: {}", routingKey, payload);
+        rabbitTemplate.convertAndSend(properties.productEventsExchange(), routingKey, payload);
+    }
+}
@@ -0,0 +1,13 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+interface ProductEventRepository extends JpaRepository<ProductEventEntity, Long> {
+
+    /**
+     * A batch of the outbox without the count query of findAll(Pageable), the outbox can hold a whole import.
+     */
+    List<ProductEventEntity> findAllBy(Pageable pageable);
+}
@@ -0,0 +1,107 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.domain.models.ProductCreatedEvent;
+import com.louly.soft.bookstore.catalog.domain.models.ProductDeletedEvent;
+import com.louly.soft.bookstore.catalog.domain.models.ProductEventType;
+import com.louly.soft.bookstore.catalog.domain.models.ProductPriceChangedEvent;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Transactional outbox of the product changes: the events are saved in product_events
+ * by the transaction changing the products, then published to RabbitMQ by ProductEventsPublishingJob
+ * and deleted once sent. A failure while publishing rolls the batch back, so consumers get
+ * every event at least once and must ignore an eventId they already processed.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ProductEventService {
+    private static final Logger log = LoggerFactory.getLogger(ProductEventService.class);
+
+    private final ProductEventRepository productEventRepository;
+    private final ProductEventPublisher productEventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties properties;
+
+    void save(ProductCreatedEvent event) {
+        save(event.eventId(), ProductEventType.PRODUCT_CREATED, event.code(), event.createdAt(), event);
+    }
+
+    void save(ProductPriceChangedEvent event) {
+        save(event.eventId(), ProductEventType.PRODUCT_PRICE_CHANGED, event.code(), event.createdAt(), event);
+    }
+
+    void save(ProductDeletedEvent event) {
+        save(event.eventId(), ProductEventType.PRODUCT_DELETED, event.code(), event.createdAt(), event);
+    }
+
+    private void save(
+            String eventId, ProductEventType eventType, String productCode, LocalDateTime createdAt, Object event) {
+        ProductEventEntity productEvent = new ProductEventEntity();
+        productEvent.setEventId(eventId);
+        productEvent.setEventType(eventType);
+        productEvent.setProductCode(productCode);
+        productEvent.setCreatedAt(createdAt);
+        productEvent.setPayload(toJsonPayload(event));
+        productEventRepository.save(productEvent);
+    }
+
+    /**
+     * Publishes the oldest events first, at most catalog.publish-product-events-batch-size per call.
+     * Returns the number of events published, 0 once the outbox is empty.
+     */
+    public int publishProductEvents() {
+        Sort sort = Sort.by("createdAt", "id").ascending();
+        List<ProductEventEntity> events =
+                productEventRepository.findAllBy(PageRequest.of(0, properties.publishProductEventsBatchSize(), sort));
+
+        for (ProductEventEntity event : events) {
+            publishEvent(event);
+        }
+        productEventRepository.deleteAllInBatch(events);
+        if (!events.isEmpty()) {
+            log.info("Published {} product events", events.size());
+        }
+        return events.size();
+    }
+
+    private void publishEvent(ProductEventEntity event) {
+        ProductEventType eventType = event.getEventType();
+        switch (eventType) {
+            case PRODUCT_CREATED ->
+                productEventPublisher.publish(fromJsonPayload(event.getPayload(), ProductCreatedEvent.class));
+            case PRODUCT_PRICE_CHANGED ->
+                productEventPublisher.publish(fromJsonPayload(event.getPayload(), ProductPriceChangedEvent.class));
+            case PRODUCT_DELETED ->
+                productEventPublisher.publish(fromJsonPayload(event.getPayload(), ProductDeletedEvent.class));
+            default -> log.warn("Unsupported ProductEventType: {}", eventType);
+        }
+    }
+
+    private String toJsonPayload(Object object) {
+        try {
+            return objectMapper.writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private <T> T fromJsonPayload(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Immutable in-memory facet index: one compressed (Roaring) bitmap of product ordinals per facet value.
+ * Ordinals follow the name order of the product pages, so the matching ordinals are already sorted.
+ * Within a facet the selected values are OR-ed, the facets are AND-ed.
+ * The count of a value is computed on the selection of the other facets only, so the counts show
+ * what selecting that value would return (disjunctive faceting). Depending on the size of that selection it is
+ * the cardinality of the value bitmap (no selection), a pass over the selected ordinals (small selection)
+ * or the intersection of the value bitmap with the selection (large selection).
+ */
+final class ProductFacetIndex {
+    static final String CATEGORY = "category";
+    static final String AUTHOR = "author";
+    static final String PRICE = "price";
+    private static final List<String> FACETS = List.of(CATEGORY, AUTHOR, PRICE);
+
+    // below this number of selected ordinals per value, one pass over the ordinals is cheaper than the intersections
+    private static final int ORDINALS_PER_VALUE_SCAN_THRESHOLD = 8;
+
+    private static final Comparator<FacetValueCount> MOST_FREQUENT_FIRST =
+            Comparator.comparingInt(FacetValueCount::count).reversed().thenComparing(FacetValueCount::value);
+
+    record Result(int totalElements, List<String> codes, Map<String, List<FacetValueCount>> facets) {}
+
+    /**
+     * The values of one facet, sorted, with their bitmap at the same index,
+     * the value index of every ordinal (-1 when the product has no value for this facet)
+     * and the counts without selection, most frequent first.
+     */
+    private record Facet(
+            String[] values, RoaringBitmap[] bitmaps, int[] valueByOrdinal, List<FacetValueCount> mostFrequent) {
+
+        RoaringBitmap bitmap(String value) {
+            int i = Arrays.binarySearch(values, value);
+            return i < 0 ? new RoaringBitmap() : bitmaps[i];
+        }
+
+        List<FacetValueCount> count(RoaringBitmap selection, int maxValues) {
+            if (selection == null) {
+                return mostFrequent.subList(0, Math.min(maxValues, mostFrequent.size()));
+            }
+            int[] counts = new int[values.length];
+            if (selection.getCardinality() < (long) values.length * ORDINALS_PER_VALUE_SCAN_THRESHOLD) {
+                selection.forEach((int ordinal) -> {
+                    int value = valueByOrdinal[ordinal];
+                    if (value >= 0) {
+                        counts[value]++;
+                    }
+                });
+            } else {
+                for (int i = 0; i < values.length; i++) {
+                    counts[i] = RoaringBitmap.andCardinality(bitmaps[i], selection);
+                }
+            }
+            return top(values, counts, maxValues);
+        }
+    }
+
+    private final String[] codes;
+    private final Map<String, Facet> facets;
+
+    private ProductFacetIndex(String[] codes, Map<String, Facet> facets) {
+        this.codes = codes;
+        this.facets = facets;
+    }
+
+    static ProductFacetIndex empty() {
+        return build(List.of(), List.of());
+    }
+
+    /**
+     * The products must be in the order of the pages.
+     * A product without category or author is only missing from that facet.
+     */
+    static ProductFacetIndex build(List<ProductAttributes> products, List<BigDecimal> priceBounds) {
+        String[] codes = new String[products.size()];
+        Map<String, Map<String, RoaringBitmap>> bitmaps = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            bitmaps.put(facet, new TreeMap<>());
+        }
+        for (int i = 0; i < codes.length; i++) {
+            ProductAttributes product = products.get(i);
+            codes[i] = product.code();
+            add(bitmaps.get(CATEGORY), product.category(), i);
+            add(bitmaps.get(AUTHOR), product.author(), i);
+            add(bitmaps.get(PRICE), priceBucket(product.price(), priceBounds), i);
+        }
+        Map<String, Facet> facets = new LinkedHashMap<>();
+        bitmaps.forEach((facet, values) -> facets.put(facet, toFacet(values, codes.length)));
+        return new ProductFacetIndex(codes, facets);
+    }
+
+    /**
+     * Bucket label of a price for the bounds [10, 25, 50]: 0-10, 10-25, 25-50 and 50+ (lower bound included).
+     */
+    static String priceBucket(BigDecimal price, List<BigDecimal> bounds) {
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : bounds) {
+            if (price.compareTo(bound) < 0) {
+                return format(lower) + "-" + format(bound);
+            }
+            lower = bound;
+        }
+        return format(lower) + "+";
+    }
+
+    /**
+     * @param selection selected values by facet, a facet without selected values does not filter
+     * @param maxValues maximum number of values returned per facet, the most frequent ones
+     */
+    Result browse(Map<String, Set<String>> selection, int offset, int limit, int maxValues) {
+        Map<String, RoaringBitmap> filters = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            Set<String> values = selection.getOrDefault(facet, Set.of());
+            if (!values.isEmpty()) {
+                Facet index = facets.get(facet);
+                filters.put(
+                        facet,
+                        FastAggregation.or(values.stream().map(index::bitmap).iterator()));
+            }
+        }
+
+        RoaringBitmap matches = intersect(filters, null);
+        int total = matches == null ? codes.length : matches.getCardinality();
+        List<String> page = new ArrayList<>(Math.min(limit, Math.max(total - offset, 0)));
+        if (offset < total) {
+            if (matches == null) {
+                page.addAll(Arrays.asList(codes).subList(offset, Math.min(offset + limit, total)));
+            } else {
+                PeekableIntIterator ordinals = matches.getIntIterator();
+                ordinals.advanceIfNeeded(matches.select(offset));
+                while (ordinals.hasNext() && page.size() < limit) {
+                    page.add(codes[ordinals.next()]);
+                }
+            }
+        }
+
+        Map<String, List<FacetValueCount>> counts = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            Facet index = facets.get(facet);
+            counts.put(facet, index.count(intersect(filters, facet), maxValues));
+        }
+        return new Result(total, page, counts);
+    }
+
+    int size() {
+        return codes.length;
+    }
+
+    long bitmapsSizeInBytes() {
+        long size = 0;
+        for (Facet facet : facets.values()) {
+            for (RoaringBitmap bitmap : facet.bitmaps()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Null when no facet other than the excluded one is selected, which means every product.
+     */
+    private static RoaringBitmap intersect(Map<String, RoaringBitmap> filters, String excludedFacet) {
+        RoaringBitmap result = null;
+        for (Map.Entry<String, RoaringBitmap> filter : filters.entrySet()) {
+            if (!filter.getKey().equals(excludedFacet)) {
+                result = result == null ? filter.getValue() : RoaringBitmap.and(result, filter.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Min-heap of size maxValues, the least frequent value on top is evicted first.
+     * The values are sorted, so a value with the same count as the top of a full heap comes after it.
+     */
+    private static List<FacetValueCount> top(String[] values, int[] counts, int maxValues) {
+        PriorityQueue<FacetValueCount> heap = new PriorityQueue<>(maxValues + 1, MOST_FREQUENT_FIRST.reversed());
+        for (int i = 0; i < values.length; i++) {
+            if (counts[i] > 0
+                    && (heap.size() < maxValues || counts[i] > heap.peek().count())) {
+                heap.offer(new FacetValueCount(values[i], counts[i]));
+                if (heap.size() > maxValues) {
+                    heap.poll();
+                }
+            }
+        }
+        List<FacetValueCount> top = new ArrayList<>(heap);
+        top.sort(MOST_FREQUENT_FIRST);
+        return top;
+    }
+
+    private static Facet toFacet(Map<String, RoaringBitmap> bitmapsByValue, int size) {
+        String[] values = bitmapsByValue.keySet().toArray(String[]::new);
+        RoaringBitmap[] bitmaps = bitmapsByValue.values().toArray(RoaringBitmap[]::new);
+        int[] valueByOrdinal = new int[size];
+        Arrays.fill(valueByOrdinal, -1);
+        List<FacetValueCount> mostFrequent = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            bitmaps[i].runOptimize();
+            mostFrequent.add(new FacetValueCount(values[i], bitmaps[i].getCardinality()));
+            int value = i;
+            bitmaps[i].forEach((int ordinal) -> valueByOrdinal[ordinal] = value);
+        }
+        mostFrequent.sort(MOST_FREQUENT_FIRST);
+        return new Facet(values, bitmaps, valueByOrdinal, List.copyOf(mostFrequent));
+    }
+
+    private static void add(Map<String, RoaringBitmap> values, String value, int ordinal) {
+        if (value != null && !value.isBlank()) {
+            values.computeIfAbsent(value, key -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private static String format(BigDecimal value) {
+        return value.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Faceted browsing (category, author, price bucket) answered from an in-memory ProductFacetIndex:
+ * the facet counts never run a GROUP BY, only the products of the requested page are read, by code.
+ * Only built when catalog.facet-enabled, otherwise the index stays empty and so are the results.
+ * The index is built when the application is ready and swapped atomically when the products table fingerprint
+ * (its last change_seq) changes, checked every catalog.facet-refresh-interval, and shortly after a change made here (CatalogIndexRefresher).
+ */
+@Service
+public class ProductFacetService implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetService.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationProperties properties;
+    private final AtomicReference<ProductFacetIndex> index = new AtomicReference<>(ProductFacetIndex.empty());
+    private final AtomicReference<ProductSnapshotVersion> version = new AtomicReference<>();
+
+    ProductFacetService(
+            ProductRepository productRepository, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        if (properties.facetEnabled()) {
+            Gauge.builder("catalog.facets.index.products", index, i -> i.get().size())
+                    .description("Number of products in the facet index")
+                    .register(meterRegistry);
+            Gauge.builder("catalog.facets.index.memory", index, i -> i.get().bitmapsSizeInBytes())
+                    .description("Size of the facet bitmaps")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Null or empty lists do not filter, several values of the same facet match any of them.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public FacetedProducts browse(List<String> categories, List<String> authors, List<String> prices, int pageNo) {
+        Map<String, Set<String>> selection = new HashMap<>();
+        selection.put(ProductFacetIndex.CATEGORY, values(categories));
+        selection.put(ProductFacetIndex.AUTHOR, values(authors));
+        selection.put(ProductFacetIndex.PRICE, values(prices));
+        int pageSize = properties.pageSize();
+        int page = Math.max(pageNo, 1);
+        // in long, a page number past the last page must not wrap around to a valid offset
+        int offset = (int) Math.min((long) (page - 1) * pageSize, Integer.MAX_VALUE);
+        ProductFacetIndex.Result result = index.get().browse(selection, offset, pageSize, properties.facetMaxValues());
+
+        Map<String, Product> found = new HashMap<>();
+        if (!result.codes().isEmpty()) {
+            for (Product product : productRepository.findProductsByCodeIn(result.codes())) {
+                found.put(product.code(), product);
+            }
+        }
+        // a product deleted since the last refresh is skipped
+        List<Product> products =
+                result.codes().stream().map(found::get).filter(Objects::nonNull).toList();
+        int totalPages = (int) Math.ceilDiv(result.totalElements(), pageSize);
+        return new FacetedProducts(
+                new PagedResult<>(
+                        products,
+                        result.totalElements(),
+                        page,
+                        totalPages,
+                        page == 1,
+                        page >= totalPages,
+                        page < totalPages,
+                        page > 1,
+                        null,
+                        null),
+                result.facets());
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        if (!properties.facetEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ProductSnapshotVersion loadedVersion = productRepository.findSnapshotVersion();
+        ProductFacetIndex rebuilt =
+                ProductFacetIndex.build(productRepository.findAllAttributesOrderedByName(), priceBounds());
+        index.set(rebuilt);
+        version.set(loadedVersion);
+        log.info(
+                "Built facet index with {} products ({} KB of bitmaps) in {} ms",
+                rebuilt.size(),
+                rebuilt.bitmapsSizeInBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional(readOnly = true)
+    public void refresh() {
+        if (properties.facetEnabled()
+                && !productRepository.findSnapshotVersion().equals(version.get())) {
+            reload();
+        }
+    }
+
+    private List<BigDecimal> priceBounds() {
+        return properties.facetPriceBuckets().stream()
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+
+    private static Set<String> values(List<String> values) {
+        Set<String> result = new LinkedHashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    result.add(value.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fields of a product response which can be requested with a sparse fieldset, e.g. ?fields=code,name,price
+ * The name of a field is both its JSON property and the ProductEntity attribute it is selected from.
+ */
+public enum ProductField {
+    CODE("code"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    IMAGE_URL("imageUrl"),
+    PRICE("price"),
+    CATEGORY("category"),
+    AUTHOR("author");
+
+    private final String fieldName;
+
+    ProductField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Null when no field is requested, which means every field.
+     * The code is always part of the fieldset, it identifies the product.
+     */
+    public static Set<ProductField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<ProductField> result = EnumSet.of(CODE);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(forFieldName(trimmed));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Canonical form of a parsed fieldset, whatever the order and repetitions of the request: the field names in
+     * declaration order, e.g. code,name,price. Empty for every field (null).
+     */
+    public static String format(Set<ProductField> fields) {
+        if (fields == null) {
+            return "";
+        }
+        return fields.stream().sorted().map(ProductField::fieldName).collect(Collectors.joining(","));
+    }
+
+    private static ProductField forFieldName(String fieldName) {
+        for (ProductField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw InvalidProductQueryException.forUnknownField(fieldName);
+    }
+}
@@ -0,0 +1,29 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Sparse fieldset queries of ProductRepository: only the columns of the requested fields (and the version,
+ * for the ETags) are selected, the other fields of the returned Product records are null.
+ */
+interface ProductFieldsRepository {
+
+    /**
+     * @param specification filters of the page, null for none
+     */
+    Page<Product> findProductPage(
+            Set<ProductField> fields, Specification<ProductEntity> specification, Pageable pageable);
+
+    /**
+     * Same as findProductPage without the count query, one extra row tells if there is a next page.
+     */
+    Slice<Product> findProductSlice(
+            Set<ProductField> fields, Specification<ProductEntity> specification, Pageable pageable);
+
+    Optional<Product> findProductByCode(String code, Set<ProductField> fields);
+}
@@ -0,0 +1,119 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * Criteria queries selecting tuples of the requested attributes, so neither the database nor the driver
+ * read the columns left out (the description is most of a row).
+ */
+class ProductFieldsRepositoryImpl implements ProductFieldsRepository {
+    private static final String VERSION = "version";
+
+    private final EntityManager entityManager;
+
+    ProductFieldsRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<Product> findProductPage(
+            Set<ProductField> fields, Specification<ProductEntity> specification, Pageable pageable) {
+        List<Product> products = select(fields, specification, pageable, pageable.getPageSize());
+        return PageableExecutionUtils.getPage(products, pageable, () -> count(specification));
+    }
+
+    @Override
+    public Slice<Product> findProductSlice(
+            Set<ProductField> fields, Specification<ProductEntity> specification, Pageable pageable) {
+        List<Product> products = select(fields, specification, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = products.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? products.subList(0, pageable.getPageSize()) : products, pageable, hasNext);
+    }
+
+    @Override
+    public Optional<Product> findProductByCode(String code, Set<ProductField> fields) {
+        Specification<ProductEntity> byCode = (root, query, cb) -> cb.equal(root.get("code"), code);
+        return select(fields, byCode, Pageable.unpaged(), 1).stream().findFirst();
+    }
+
+    private List<Product> select(
+            Set<ProductField> fields, Specification<ProductEntity> specification, Pageable pageable, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<ProductEntity> root = query.from(ProductEntity.class);
+        List<Selection<?>> selections = new ArrayList<>(fields.size() + 1);
+        for (ProductField field : fields) {
+            selections.add(root.get(field.fieldName()).alias(field.fieldName()));
+        }
+        selections.add(root.get(VERSION).alias(VERSION));
+        query.multiselect(selections);
+        where(query, root, cb, specification);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setMaxResults(limit);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+        }
+        return typedQuery.getResultList().stream()
+                .map(tuple -> toProduct(tuple, fields))
+                .toList();
+    }
+
+    private long count(Specification<ProductEntity> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<ProductEntity> root = query.from(ProductEntity.class);
+        query.select(cb.count(root));
+        where(query, root, cb, specification);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void where(
+            CriteriaQuery<?> query,
+            Root<ProductEntity> root,
+            CriteriaBuilder cb,
+            Specification<ProductEntity> specification) {
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+
+    private static Product toProduct(Tuple tuple, Set<ProductField> fields) {
+        return new Product(
+                get(tuple, fields, ProductField.CODE, String.class),
+                get(tuple, fields, ProductField.NAME, String.class),
+                get(tuple, fields, ProductField.DESCRIPTION, String.class),
+                get(tuple, fields, ProductField.IMAGE_URL, String.class),
+                get(tuple, fields, ProductField.PRICE, BigDecimal.class),
+                get(tuple, fields, ProductField.CATEGORY, String.class),
+                get(tuple, fields, ProductField.AUTHOR, String.class),
+                tuple.get(VERSION, Long.class));
+    }
+
+    private static <T> T get(Tuple tuple, Set<ProductField> fields, ProductField field, Class<T> type) {
+        return fields.contains(field) ? tuple.get(field.fieldName(), type) : null;
+    }
+}
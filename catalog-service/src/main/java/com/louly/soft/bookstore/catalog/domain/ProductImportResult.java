@@ -0,0 +1,18 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk import, errors only lists the first rejected rows.
+ */
+public record ProductImportResult(
+        long totalRows,
+        long upsertedRows,
+        long rejectedRows,
+        List<String> errors,
+        List<Batch> batches,
+        long durationMillis,
+        long rowsPerSecond) {
+
+    public record Batch(int number, int rows, long upsertedRows, long durationMillis, long rowsPerSecond) {}
+}
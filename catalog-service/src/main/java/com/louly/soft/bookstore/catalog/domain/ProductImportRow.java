@@ -0,0 +1,16 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import java.math.BigDecimal;
+
+/**
+ * One row of a bulk import, CSV files must have a header line with these column names.
+ */
+record ProductImportRow(
+        String code,
+        String name,
+        String description,
+        @JsonAlias("image_url") String imageUrl,
+        BigDecimal price,
+        String category,
+        String author) {}
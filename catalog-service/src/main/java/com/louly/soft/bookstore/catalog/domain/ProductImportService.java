@@ -0,0 +1,308 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.domain.models.ProductEventType;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk import of products from CSV or NDJSON.
+ * The input is read as a stream and cut in batches of catalog.import-batch-size valid rows,
+ * every batch is loaded with the postgres COPY protocol into a temporary staging table and then
+ * upserted into products with a single INSERT ... ON CONFLICT (code), in its own transaction.
+ * That is a couple of statements per batch instead of one statement per product.
+ * Rows are validated against the ProductEntity constraints first, invalid rows are skipped and reported.
+ * New products and price changes are saved in the product_events outbox by the same statement, set-based.
+ * Hibernate does not see these writes, the second-level and query caches of the products are evicted after every batch.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String CREATE_STAGING_TABLE =
+            """
+            create temp table product_import_staging (
+                ordinal     int,
+                code        text,
+                name        text,
+                description text,
+                image_url   text,
+                price       numeric,
+                category    text,
+                author      text
+            ) on commit drop
+            """;
+
+    private static final String COPY_INTO_STAGING =
+            "copy product_import_staging (ordinal, code, name, description, image_url, price, category, author) from stdin with (format csv)";
+
+    /**
+     * When a code appears more than once in the batch the last row wins (distinct on ... ordinal desc),
+     * and rows which did not change are left untouched so their version (ETag) stays the same.
+     * The created and repriced products get their outbox event in the same statement, the payload is the JSON
+     * of ProductCreatedEvent or ProductPriceChangedEvent as Jackson writes it (ISO local date-times).
+     * All the CTEs read the same snapshot, so previous sees the table as it was before the insert.
+     * Returns the number of upserted rows.
+     */
+    private static final String UPSERT_FROM_STAGING =
+            """
+            with incoming as (
+                select distinct on (code) code, name, description, image_url, price, category, author
+                from product_import_staging
+                order by code, ordinal desc
+            ),
+            previous as (
+                select p.code, p.price from products p join incoming i on i.code = p.code
+            ),
+            upserted as (
+                insert into products (code, name, description, image_url, price, category, author)
+                select code, name, description, image_url, price, category, author from incoming
+                on conflict (code) do update
+            set name        = excluded.name,
+                description = excluded.description,
+                image_url   = excluded.image_url,
+                price       = excluded.price,
+                category    = excluded.category,
+                author      = excluded.author,
+                version     = products.version + 1,
+                updated_at  = now()
+            where (products.name, products.description, products.image_url, products.price,
+                   products.category, products.author)
+                      is distinct from (excluded.name, excluded.description, excluded.image_url, excluded.price,
+                                        excluded.category, excluded.author)
+                returning code, name, description, image_url, price
+            ),
+            changes as (
+                select gen_random_uuid()::text as event_id, u.code, u.name, u.description, u.image_url, u.price,
+                       p.price as previous_price, localtimestamp as created_at
+                from upserted u left join previous p on p.code = u.code
+                where p.price is null or p.price <> u.price
+            ),
+            events as (
+                insert into product_events (product_code, event_id, event_type, payload, created_at)
+                select code, event_id,
+                       case when previous_price is null then '%s' else '%s' end,
+                       case when previous_price is null
+                            then json_build_object('eventId', event_id, 'code', code, 'name', name,
+                                                   'description', description, 'imageUrl', image_url,
+                                                   'price', price, 'createdAt', created_at)
+                            else json_build_object('eventId', event_id, 'code', code, 'oldPrice', previous_price,
+                                                   'newPrice', price, 'createdAt', created_at)
+                       end::text,
+                       created_at
+                from changes
+            )
+            select count(*) from upserted
+            """
+                    .formatted(ProductEventType.PRODUCT_CREATED, ProductEventType.PRODUCT_PRICE_CHANGED);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApplicationProperties properties;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    /**
+     * Batches already upserted stay committed if a later row cannot be parsed.
+     */
+    public ProductImportResult importProducts(InputStream input, ImportFormat format) {
+        long start = System.nanoTime();
+        int batchSize = properties.importBatchSize();
+        List<ProductImportRow> batch = new ArrayList<>(batchSize);
+        List<ProductImportResult.Batch> batches = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        long rowNumber = 0;
+        long rejected = 0;
+
+        try (MappingIterator<ProductImportRow> rows = reader(format).readValues(input)) {
+            while (rows.hasNextValue()) {
+                ProductImportRow row = rows.nextValue();
+                rowNumber++;
+                String error = validate(row);
+                if (error != null) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Row " + rowNumber + ": " + error);
+                    }
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    batches.add(importBatch(batches.size() + 1, batch));
+                    batch.clear();
+                }
+            }
+        } catch (IOException | RuntimeJsonMappingException e) {
+            throw InvalidProductImportException.forRow(rowNumber + 1, e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            batches.add(importBatch(batches.size() + 1, batch));
+        }
+
+        long upserted = batches.stream()
+                .mapToLong(ProductImportResult.Batch::upsertedRows)
+                .sum();
+        if (upserted > 0) {
+            eventPublisher.publishEvent(new ProductsChangedEvent(upserted));
+        }
+        long durationNanos = System.nanoTime() - start;
+        log.info(
+                "Imported {} rows ({} upserted, {} rejected) in {} batches, {} ms",
+                rowNumber,
+                upserted,
+                rejected,
+                batches.size(),
+                durationNanos / 1_000_000);
+        return new ProductImportResult(
+                rowNumber,
+                upserted,
+                rejected,
+                errors,
+                batches,
+                durationNanos / 1_000_000,
+                rowsPerSecond(rowNumber, durationNanos));
+    }
+
+    private ProductImportResult.Batch importBatch(int number, List<ProductImportRow> rows) {
+        long start = System.nanoTime();
+        String csv = toCsv(rows);
+        Integer upserted =
+                transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(CREATE_STAGING_TABLE);
+                    }
+                    try {
+                        connection
+                                .unwrap(PGConnection.class)
+                                .getCopyAPI()
+                                .copyIn(COPY_INTO_STAGING, new StringReader(csv));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    try (Statement statement = connection.createStatement();
+                            ResultSet resultSet = statement.executeQuery(UPSERT_FROM_STAGING)) {
+                        resultSet.next();
+                        return resultSet.getInt(1);
+                    }
+                }));
+        if (upserted != null && upserted > 0) {
+            evictCachedProducts();
+        }
+        long durationNanos = System.nanoTime() - start;
+        var result = new ProductImportResult.Batch(
+                number,
+                rows.size(),
+                upserted == null ? 0 : upserted,
+                durationNanos / 1_000_000,
+                rowsPerSecond(rows.size(), durationNanos));
+        log.info(
+                "Import batch {}: {} rows, {} upserted in {} ms ({} rows/s)",
+                result.number(),
+                result.rows(),
+                result.upsertedRows(),
+                result.durationMillis(),
+                result.rowsPerSecond());
+        return result;
+    }
+
+    /**
+     * No-op when the second-level cache is disabled.
+     */
+    private void evictCachedProducts() {
+        entityManagerFactory.getCache().evict(ProductEntity.class);
+        entityManagerFactory
+                .unwrap(SessionFactory.class)
+                .getCache()
+                .evictQueryRegion(ProductRepository.QUERY_CACHE_REGION);
+    }
+
+    private ObjectReader reader(ImportFormat format) {
+        if (format == ImportFormat.CSV) {
+            return csvMapper
+                    .readerFor(ProductImportRow.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .with(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+        }
+        return objectMapper.readerFor(ProductImportRow.class);
+    }
+
+    private String validate(ProductImportRow row) {
+        ProductEntity entity = new ProductEntity();
+        entity.setCode(row.code());
+        entity.setName(row.name());
+        entity.setDescription(row.description());
+        entity.setImageUrl(row.imageUrl());
+        entity.setPrice(row.price());
+        Set<ConstraintViolation<ProductEntity>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * COPY csv format: unquoted empty fields are NULL, everything else is quoted with doubled quotes.
+     */
+    private static String toCsv(List<ProductImportRow> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 256);
+        for (int i = 0; i < rows.size(); i++) {
+            ProductImportRow row = rows.get(i);
+            csv.append(i).append(',');
+            appendField(csv, row.code()).append(',');
+            appendField(csv, row.name()).append(',');
+            appendField(csv, row.description()).append(',');
+            appendField(csv, row.imageUrl()).append(',');
+            csv.append(row.price().toPlainString()).append(',');
+            appendField(csv, row.category()).append(',');
+            appendField(csv, row.author()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static StringBuilder appendField(StringBuilder csv, String value) {
+        if (value != null) {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        return csv;
+    }
+
+    private static long rowsPerSecond(long rows, long durationNanos) {
+        return durationNanos == 0 ? rows : rows * 1_000_000_000L / durationNanos;
+    }
+}
@@ -0,0 +1,6 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record ProductLookupRequest(@NotEmpty(message = "Product codes are required") List<String> codes) {}
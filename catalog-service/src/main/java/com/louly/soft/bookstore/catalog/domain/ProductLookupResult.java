@@ -0,0 +1,10 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a bulk lookup by codes, products are keyed by code (in the requested order)
+ * and the codes which do not exist are listed in missingCodes.
+ */
+public record ProductLookupResult(Map<String, Product> products, List<String> missingCodes) {}
@@ -8,6 +8,9 @@ class ProductMapper {
                 productEntity.getName(),
                 productEntity.getDescription(),
                 productEntity.getImageUrl(),
-                productEntity.getPrice());
+                productEntity.getPrice(),
+                productEntity.getCategory(),
+                productEntity.getAuthor(),
+                productEntity.getVersion());
     }
 }
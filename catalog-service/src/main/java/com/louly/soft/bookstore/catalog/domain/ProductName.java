@@ -0,0 +1,6 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * Minimal projection of a product used to build in-memory indexes without loading whole entities.
+ */
+record ProductName(Long id, String code, String name) {}
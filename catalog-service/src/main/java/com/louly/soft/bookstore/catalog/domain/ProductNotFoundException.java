@@ -1,8 +1,12 @@
 package com.louly.soft.bookstore.catalog.domain;
 
+/**
+ * Without stack trace: a missing product is an expected answer rendered as a 404, the trace is never logged,
+ * and probing clients (bots, stale carts) make a lot of them, so they are not worth the stack walk.
+ */
 public class ProductNotFoundException extends RuntimeException {
     public ProductNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public static ProductNotFoundException forCode(String code) {
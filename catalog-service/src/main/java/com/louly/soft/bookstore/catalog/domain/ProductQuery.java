@@ -0,0 +1,39 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Filters and sort order of the product listing.
+ * Only the combinations an index can answer without scanning and sorting the whole table are accepted:
+ * <ul>
+ *   <li>no filter, any sort</li>
+ *   <li>namePrefix with NAME, range scan on the (name collate "C", id) index, the page is in C collation order</li>
+ *   <li>minPrice/maxPrice with PRICE_ASC or PRICE_DESC, range scan on the (price, id) index</li>
+ * </ul>
+ */
+public record ProductQuery(BigDecimal minPrice, BigDecimal maxPrice, String namePrefix, ProductSort sort) {
+    public static final ProductQuery DEFAULT = new ProductQuery(null, null, null, ProductSort.NAME);
+
+    public ProductQuery {
+        if (namePrefix != null && namePrefix.isBlank()) {
+            namePrefix = null;
+        }
+        if (sort == null) {
+            sort = ProductSort.NAME;
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw InvalidProductQueryException.forPriceRange(minPrice, maxPrice);
+        }
+        boolean priceFilter = minPrice != null || maxPrice != null;
+        if (priceFilter && sort != ProductSort.PRICE_ASC && sort != ProductSort.PRICE_DESC) {
+            throw InvalidProductQueryException.forUnsupportedCombination("minPrice/maxPrice", sort);
+        }
+        if (namePrefix != null && sort != ProductSort.NAME) {
+            throw InvalidProductQueryException.forUnsupportedCombination("namePrefix", sort);
+        }
+    }
+
+    public boolean hasFilters() {
+        return minPrice != null || maxPrice != null || namePrefix != null;
+    }
+}
@@ -1,9 +1,181 @@
 package com.louly.soft.bookstore.catalog.domain;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-interface ProductRepository extends JpaRepository<ProductEntity, Long> {
+interface ProductRepository
+        extends JpaRepository<ProductEntity, Long>, JpaSpecificationExecutor<ProductEntity>, ProductFieldsRepository {
 
+    /**
+     * Read paths selecting straight into the Product record with a JPQL constructor expression:
+     * no managed entity, no dirty checking snapshot and no mapping step.
+     */
+    String PRODUCT_PROJECTION =
+            "select new com.louly.soft.bookstore.catalog.domain.Product(p.code, p.name, p.description, p.imageUrl, p.price, p.category, p.author, p.version) from ProductEntity p";
+
+    /**
+     * Query cache region of the listing and lookup by code queries (the count query included),
+     * only used when catalog.second-level-cache-enabled (see SecondLevelCacheConfig).
+     * Hibernate drops the cached results on every change of the products table made through JPA,
+     * the changes made with plain JDBC (bulk import) must evict the region themselves.
+     */
+    String QUERY_CACHE_REGION = "catalog.product-queries";
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query(value = PRODUCT_PROJECTION, countQuery = "select count(p) from ProductEntity p")
+    Page<Product> findProducts(Pageable pageable);
+
+    /**
+     * Same page as findProducts(pageable) but returned as a Slice,
+     * so Spring Data fetches one extra row instead of running a second count query.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query(PRODUCT_PROJECTION)
+    Slice<Product> findProductSlice(Pageable pageable);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query(PRODUCT_PROJECTION + " where p.code = :code")
+    Optional<Product> findProductByCode(String code);
+
+    @Query(PRODUCT_PROJECTION + " where p.code in :codes")
+    List<Product> findProductsByCodeIn(Collection<String> codes);
+
+    /**
+     * The whole catalog for the in-memory snapshot, in the order of the name pages.
+     */
+    @Query(PRODUCT_PROJECTION + " order by p.name, p.id")
+    List<Product> findAllProductsOrderedByName();
+
+    /**
+     * Name and description of the whole catalog for the in-memory similarity index.
+     */
+    @Query(
+            "select new com.louly.soft.bookstore.catalog.domain.ProductText(p.code, p.name, p.description) from ProductEntity p order by p.id")
+    List<ProductText> findAllTexts();
+
+    /**
+     * Facet attributes of the whole catalog for the in-memory facet index, in the order of the name pages.
+     */
+    @Query(
+            "select new com.louly.soft.bookstore.catalog.domain.ProductAttributes(p.code, p.category, p.author, p.price) from ProductEntity p order by p.name, p.id")
+    List<ProductAttributes> findAllAttributesOrderedByName();
+
+    default ProductSnapshotVersion findSnapshotVersion() {
+        return new ProductSnapshotVersion(findLastChangeSeq());
+    }
+
+    /**
+     * Two backward index scans (products_change_seq_idx, product_tombstones_change_seq_idx).
+     */
+    @Query(
+            value =
+                    """
+                    select greatest(
+                        coalesce((select max(change_seq) from products), 0),
+                        coalesce((select max(change_seq) from product_tombstones), 0))
+                    """,
+            nativeQuery = true)
+    long findLastChangeSeq();
+
+    /**
+     * Cached as well, a repeated lookup (delete by code) does not select the entity again.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
     Optional<ProductEntity> findByCode(String code);
+
+    /**
+     * Fetch many products with a single query (where code in (...)) instead of one call per code.
+     */
+    List<ProductEntity> findByCodeIn(Collection<String> codes);
+
+    /**
+     * Row count estimated by the planner statistics, -1 if the table has never been analyzed.
+     */
+    @Query(
+            value = "select cast(reltuples as bigint) from pg_class where oid = to_regclass('products')",
+            nativeQuery = true)
+    long estimateCount();
+
+    /**
+     * Keyset pagination queries, they seek on the (name, id) index (see V3 migration)
+     * instead of skipping rows with OFFSET, so every page costs the same no matter how deep it is.
+     * The id is the tie-breaker because the name is not unique.
+     */
+    @Query(value = "select * from products order by name, id limit :limit", nativeQuery = true)
+    List<ProductEntity> findFirstPage(int limit);
+
+    @Query(
+            value = "select * from products where (name, id) > (:name, :id) order by name, id limit :limit",
+            nativeQuery = true)
+    List<ProductEntity> findPageAfter(String name, long id, int limit);
+
+    @Query(
+            value = "select * from products where (name, id) < (:name, :id) order by name desc, id desc limit :limit",
+            nativeQuery = true)
+    List<ProductEntity> findPageBefore(String name, long id, int limit);
+
+    /**
+     * Lightweight projections used to build the in-memory suggestion index.
+     */
+    @Query("select new com.louly.soft.bookstore.catalog.domain.ProductName(p.id, p.code, p.name) from ProductEntity p")
+    List<ProductName> findAllNames();
+
+    @Query(
+            "select new com.louly.soft.bookstore.catalog.domain.ProductName(p.id, p.code, p.name) from ProductEntity p where p.id > :id")
+    List<ProductName> findNamesByIdGreaterThan(long id);
+
+    /**
+     * Full text search on the generated search_vector column (GIN index, see V4 migration),
+     * best matches first by ts_rank. websearch_to_tsquery accepts free user input ("quoted phrases", -exclusions)
+     * without failing on syntax errors. The pageable must be unsorted, the order comes from the rank.
+     */
+    @Query(
+            value =
+                    """
+                    select p.* from products p
+                    where p.search_vector @@ websearch_to_tsquery('english', :query)
+                    order by ts_rank(p.search_vector, websearch_to_tsquery('english', :query)) desc, p.id
+                    """,
+            countQuery =
+                    """
+                    select count(*) from products p
+                    where p.search_vector @@ websearch_to_tsquery('english', :query)
+                    """,
+            nativeQuery = true)
+    Page<ProductEntity> search(String query, Pageable pageable);
+
+    /**
+     * Streams the whole table for the export, must be consumed inside a (read-only) transaction and closed.
+     * The fetch size makes the postgres driver use a server side cursor and read the rows in chunks
+     * instead of loading the whole result set in memory, and the read-only hint skips the dirty checking snapshots.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from ProductEntity p order by p.id")
+    Stream<ProductEntity> streamAll();
 }
@@ -1,33 +1,151 @@
 package com.louly.soft.bookstore.catalog.domain;
 
 import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.domain.models.ProductDeletedEvent;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Read-only transactions, except for the write methods: Spring switches the Hibernate session to FlushMode.MANUAL and default read-only,
+ * so entities loaded by the native (keyset, search) queries get no dirty checking snapshot,
+ * and the connection is flagged read-only.
+ */
 @Service
-@Transactional
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ProductCountCache productCountCache;
+    private final ProductSnapshotService productSnapshotService;
     private final ApplicationProperties properties;
+    private final ProductEventService productEventService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductCodeFilterService productCodeFilterService;
 
     public PagedResult<Product> getProducts(int pageNo) {
+        return getProducts(pageNo, properties.totalCount());
+    }
+
+    public PagedResult<Product> getProducts(int pageNo, TotalCountMode countMode) {
+        return getProducts(pageNo, countMode, ProductQuery.DEFAULT);
+    }
+
+    /**
+     * Default listing (name order, no filter) is answered by the in-memory snapshot when it is enabled.
+     * Otherwise, without filters the page is selected straight into Product records,
+     * with filters it goes through a Specification and the entities are mapped (read-only, no snapshots).
+     * No transaction here (SUPPORTS) so a snapshot answer does not take a pooled connection,
+     * the repository calls run in their own read-only transactions.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PagedResult<Product> getProducts(int pageNo, TotalCountMode countMode, ProductQuery query) {
+        return getProducts(pageNo, countMode, query, null);
+    }
+
+    /**
+     * With a sparse fieldset (not null) only the columns of the requested fields are read,
+     * except from the in-memory snapshot which holds whole products anyway.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PagedResult<Product> getProducts(
+            int pageNo, TotalCountMode countMode, ProductQuery query, Set<ProductField> fields) {
         /**
          * when using pagination then always specify the sort option as well
          * this pageNo by default start with index 0
          */
         pageNo = pageNo <= 1 ? 0 : pageNo - 1;
-        Sort sort = Sort.by("name").ascending();
-        Pageable pageable = PageRequest.of(pageNo, properties.pageSize(), sort);
-        Page<Product> productPages = productRepository.findAll(pageable).map(ProductMapper::toProduct);
+        ProductSnapshot snapshot = productSnapshotService.current();
+        if (snapshot != null && query.equals(ProductQuery.DEFAULT)) {
+            return snapshot.page(pageNo, properties.pageSize(), countMode != TotalCountMode.NONE);
+        }
+        Pageable pageable = PageRequest.of(pageNo, properties.pageSize(), ProductSpecifications.sort(query));
+        Specification<ProductEntity> specification = query.hasFilters() ? ProductSpecifications.forQuery(query) : null;
+        if (countMode == TotalCountMode.EXACT) {
+            Page<Product> productPages;
+            if (fields != null) {
+                productPages = productRepository.findProductPage(fields, specification, pageable);
+            } else if (specification == null) {
+                productPages = productRepository.findProducts(pageable);
+            } else {
+                productPages =
+                        productRepository.findAll(specification, pageable).map(ProductMapper::toProduct);
+            }
+            return toPagedResult(productPages);
+        }
 
+        // NONE and ESTIMATED: no count query, the slice already knows if there is a next page
+        Slice<Product> productSlice;
+        if (fields != null) {
+            productSlice = productRepository.findProductSlice(fields, specification, pageable);
+        } else if (specification == null) {
+            productSlice = productRepository.findProductSlice(pageable);
+        } else {
+            productSlice = productRepository
+                    .findBy(specification, q -> q.slice(pageable))
+                    .map(ProductMapper::toProduct);
+        }
+        long totalElements = PagedResult.UNKNOWN;
+        int totalPages = PagedResult.UNKNOWN;
+        // the cached count is the size of the whole table, it says nothing about a filtered listing
+        if (countMode == TotalCountMode.ESTIMATED && specification == null) {
+            // the estimate can lag behind, it never goes below what this page proves to exist
+            long seen = pageable.getOffset() + productSlice.getNumberOfElements() + (productSlice.hasNext() ? 1 : 0);
+            totalElements = Math.max(productCountCache.getCount(), seen);
+            totalPages = (int) Math.ceilDiv(totalElements, pageable.getPageSize());
+        }
+        return new PagedResult<>(
+                productSlice.getContent(),
+                totalElements,
+                productSlice.getNumber() + 1,
+                totalPages,
+                productSlice.isFirst(),
+                productSlice.isLast(),
+                productSlice.hasNext(),
+                productSlice.hasPrevious(),
+                null,
+                null);
+    }
+
+    /**
+     * Full text search on name and description, ranked by relevance.
+     */
+    public PagedResult<Product> searchProducts(String query, int pageNo) {
+        if (query == null || query.isBlank()) {
+            throw InvalidProductQueryException.forEmptySearch();
+        }
+        pageNo = pageNo <= 1 ? 0 : pageNo - 1;
+        Pageable pageable = PageRequest.of(pageNo, properties.pageSize());
+        Page<Product> productPages =
+                productRepository.search(query.trim(), pageable).map(ProductMapper::toProduct);
+        return toPagedResult(productPages);
+    }
+
+    private static PagedResult<Product> toPagedResult(Page<Product> productPages) {
         return new PagedResult<>(
                 productPages.getContent(),
                 productPages.getTotalElements(),
@@ -36,10 +154,146 @@ public class ProductService {
                 productPages.isFirst(),
                 productPages.isLast(),
                 productPages.hasNext(),
-                productPages.hasPrevious());
+                productPages.hasPrevious(),
+                null,
+                null);
+    }
+
+    /**
+     * Keyset (cursor) pagination ordered by (name, id).
+     * An empty cursor returns the first page, otherwise the cursor is one of the
+     * nextCursor/prevCursor values returned with a previous page.
+     * One extra row is fetched to know if there is another page in the requested direction,
+     * and no count query is executed, so the totals are UNKNOWN.
+     */
+    public PagedResult<Product> getProducts(String cursor) {
+        int pageSize = properties.pageSize();
+        int limit = pageSize + 1;
+        ProductCursor position = cursor.isBlank() ? null : ProductCursor.decode(cursor);
+
+        List<ProductEntity> rows;
+        boolean hasNext;
+        boolean hasPrevious;
+        if (position == null) {
+            rows = productRepository.findFirstPage(limit);
+            hasNext = rows.size() > pageSize;
+            hasPrevious = false;
+            rows = rows.subList(0, Math.min(rows.size(), pageSize));
+        } else if (position.direction() == ProductCursor.Direction.NEXT) {
+            rows = productRepository.findPageAfter(position.name(), position.id(), limit);
+            hasNext = rows.size() > pageSize;
+            hasPrevious = true;
+            rows = rows.subList(0, Math.min(rows.size(), pageSize));
+        } else {
+            // rows come back in descending order, closest to the cursor first
+            rows = new ArrayList<>(productRepository.findPageBefore(position.name(), position.id(), limit));
+            hasPrevious = rows.size() > pageSize;
+            hasNext = true;
+            rows = rows.subList(0, Math.min(rows.size(), pageSize));
+            Collections.reverse(rows);
+        }
+
+        String nextCursor =
+                hasNext && !rows.isEmpty() ? ProductCursor.next(rows.getLast()).encode() : null;
+        String prevCursor = hasPrevious && !rows.isEmpty()
+                ? ProductCursor.previous(rows.getFirst()).encode()
+                : null;
+        return new PagedResult<>(
+                rows.stream().map(ProductMapper::toProduct).toList(),
+                PagedResult.UNKNOWN,
+                PagedResult.UNKNOWN,
+                PagedResult.UNKNOWN,
+                prevCursor == null,
+                nextCursor == null,
+                nextCursor != null,
+                prevCursor != null,
+                nextCursor,
+                prevCursor);
     }
 
+    /**
+     * The ProductDeletedEvent is saved in the outbox by the same transaction.
+     */
+    @Transactional
+    public void deleteProduct(String code) {
+        ProductEntity product =
+                productRepository.findByCode(code).orElseThrow(() -> ProductNotFoundException.forCode(code));
+        productRepository.delete(product);
+        productEventService.save(new ProductDeletedEvent(UUID.randomUUID().toString(), code, LocalDateTime.now()));
+        eventPublisher.publishEvent(new ProductsChangedEvent(1));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Product> getProductByCode(String code) {
-        return productRepository.findByCode(code).map(ProductMapper::toProduct);
+        return getProductByCode(code, null);
+    }
+
+    /**
+     * With a sparse fieldset (not null) only the columns of the requested fields are read.
+     * The codes the Bloom filter knows to be unknown are not looked up.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Product> getProductByCode(String code, Set<ProductField> fields) {
+        ProductSnapshot snapshot = productSnapshotService.current();
+        if (snapshot != null) {
+            return snapshot.get(code);
+        }
+        if (!productCodeFilterService.mightExist(code)) {
+            return Optional.empty();
+        }
+        Optional<Product> product = fields == null
+                ? productRepository.findProductByCode(code)
+                : productRepository.findProductByCode(code, fields);
+        if (product.isEmpty()) {
+            productCodeFilterService.recordFalsePositive();
+        }
+        return product;
+    }
+
+    /**
+     * Bulk lookup, the codes are de-duplicated and fetched with a single query.
+     */
+    public ProductLookupResult getProductsByCodes(Collection<String> codes) {
+        Set<String> uniqueCodes = new LinkedHashSet<>();
+        for (String code : codes) {
+            if (code != null && !code.isBlank()) {
+                uniqueCodes.add(code.trim());
+            }
+        }
+        if (uniqueCodes.size() > properties.maxLookupCodes()) {
+            throw InvalidProductQueryException.forTooManyCodes(uniqueCodes.size(), properties.maxLookupCodes());
+        }
+        if (uniqueCodes.isEmpty()) {
+            return new ProductLookupResult(Map.of(), List.of());
+        }
+
+        Map<String, Product> found = new HashMap<>();
+        for (Product product : productRepository.findProductsByCodeIn(uniqueCodes)) {
+            found.put(product.code(), product);
+        }
+        Map<String, Product> products = new LinkedHashMap<>();
+        List<String> missingCodes = new ArrayList<>();
+        for (String code : uniqueCodes) {
+            Product product = found.get(code);
+            if (product != null) {
+                products.put(code, product);
+            } else {
+                missingCodes.add(code);
+            }
+        }
+        return new ProductLookupResult(products, missingCodes);
+    }
+
+    /**
+     * Hands every product to the consumer one by one, the memory used stays the same whatever the size of the table:
+     * the rows are fetched in chunks and each entity is detached once consumed so the persistence context stays empty.
+     */
+    public void exportProducts(Consumer<Product> consumer) {
+        try (Stream<ProductEntity> products = productRepository.streamAll()) {
+            products.forEach(entity -> {
+                consumer.accept(ProductMapper.toProduct(entity));
+                entityManager.detach(entity);
+            });
+        }
     }
 }
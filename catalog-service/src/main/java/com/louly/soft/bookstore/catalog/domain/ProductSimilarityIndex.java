@@ -0,0 +1,175 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable "more like this" index: one L2-normalized TF-IDF vector per product over the words of its name
+ * (counted twice, the title says more than the blurb) and description.
+ * Words are hashed into a fixed number of dimensions (feature hashing with a random sign, so collisions cancel out
+ * instead of adding up), which bounds the memory to products x dimensions floats whatever the vocabulary size.
+ * All vectors are stored back to back in a single float[], so a query is a brute-force scan of dot products
+ * (the cosine, the vectors being normalized) over one contiguous array, vectorized by the DotProduct implementation.
+ */
+final class ProductSimilarityIndex {
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "he", "her", "his",
+            "in", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their", "they", "this", "to", "was",
+            "were", "will", "with", "you", "your");
+
+    private final String[] codes;
+    private final String[] names;
+    private final Map<String, Integer> ordinals;
+    private final float[] vectors;
+    private final int dimensions;
+    private final DotProduct dotProduct;
+
+    private ProductSimilarityIndex(
+            String[] codes, String[] names, float[] vectors, int dimensions, DotProduct dotProduct) {
+        this.codes = codes;
+        this.names = names;
+        this.vectors = vectors;
+        this.dimensions = dimensions;
+        this.dotProduct = dotProduct;
+        this.ordinals = HashMap.newHashMap(codes.length);
+        for (int i = 0; i < codes.length; i++) {
+            ordinals.put(codes[i], i);
+        }
+    }
+
+    static ProductSimilarityIndex empty() {
+        return build(List.of(), 1, new ScalarDotProduct());
+    }
+
+    /**
+     * Two passes over the texts: the document frequencies first, then the vectors,
+     * so no per product term map is kept while the index is built.
+     */
+    static ProductSimilarityIndex build(List<ProductText> products, int dimensions, DotProduct dotProduct) {
+        int size = products.size();
+        Map<String, int[]> documentFrequencies = new HashMap<>();
+        for (ProductText product : products) {
+            Map<String, Integer> terms = termCounts(product);
+            terms.keySet().forEach(term -> documentFrequencies.computeIfAbsent(term, key -> new int[1])[0]++);
+        }
+
+        String[] codes = new String[size];
+        String[] names = new String[size];
+        float[] vectors = new float[Math.multiplyExact(size, dimensions)];
+        for (int i = 0; i < size; i++) {
+            ProductText product = products.get(i);
+            codes[i] = product.code();
+            names[i] = product.name();
+            int offset = i * dimensions;
+            termCounts(product).forEach((term, count) -> {
+                double tf = 1 + Math.log(count);
+                double idf = Math.log((1.0 + size) / (1.0 + documentFrequencies.get(term)[0])) + 1;
+                int hash = mix(term.hashCode());
+                int dimension = Math.floorMod(hash, dimensions);
+                float sign = (hash & 0x8000_0000) == 0 ? 1 : -1;
+                vectors[offset + dimension] += (float) (sign * tf * idf);
+            });
+            normalize(vectors, offset, dimensions);
+        }
+        return new ProductSimilarityIndex(codes, names, vectors, dimensions, dotProduct);
+    }
+
+    /**
+     * Empty when the code is not in the index, products without any word in common are never returned.
+     */
+    Optional<List<SimilarProduct>> similar(String code, int limit) {
+        Integer ordinal = ordinals.get(code);
+        if (ordinal == null) {
+            return Optional.empty();
+        }
+        // the best scores so far, sorted in descending order, limit is small so an insertion is a short shift
+        float[] topScores = new float[limit];
+        int[] topOrdinals = new int[limit];
+        int found = 0;
+        int queryOffset = ordinal * dimensions;
+        for (int i = 0; i < codes.length; i++) {
+            if (i == ordinal) {
+                continue;
+            }
+            float score = dotProduct.dot(vectors, queryOffset, vectors, i * dimensions, dimensions);
+            if (score <= 0 || (found == limit && score <= topScores[limit - 1])) {
+                continue;
+            }
+            int position = found == limit ? limit - 1 : found++;
+            while (position > 0 && topScores[position - 1] < score) {
+                topScores[position] = topScores[position - 1];
+                topOrdinals[position] = topOrdinals[position - 1];
+                position--;
+            }
+            topScores[position] = score;
+            topOrdinals[position] = i;
+        }
+        List<SimilarProduct> similar = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            similar.add(new SimilarProduct(codes[topOrdinals[i]], names[topOrdinals[i]], topScores[i]));
+        }
+        return Optional.of(similar);
+    }
+
+    int size() {
+        return codes.length;
+    }
+
+    long vectorsSizeInBytes() {
+        return (long) vectors.length * Float.BYTES;
+    }
+
+    DotProduct dotProduct() {
+        return dotProduct;
+    }
+
+    private static Map<String, Integer> termCounts(ProductText product) {
+        Map<String, Integer> counts = new HashMap<>();
+        Consumer<String> add = term -> counts.merge(term, 1, Integer::sum);
+        forEachTerm(product.name(), add);
+        forEachTerm(product.name(), add);
+        forEachTerm(product.description(), add);
+        return counts;
+    }
+
+    private static void forEachTerm(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        for (String word : SuggestionIndex.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() > 1 && !STOP_WORDS.contains(word)) {
+                consumer.accept(word);
+            }
+        }
+    }
+
+    /**
+     * Spreads the String hash codes (murmur3 finalizer), their low bits are poor for short words.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85eb_ca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2_ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static void normalize(float[] vectors, int offset, int length) {
+        double norm = 0;
+        for (int i = offset; i < offset + length; i++) {
+            norm += vectors[i] * vectors[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = offset; i < offset + length; i++) {
+                vectors[i] *= scale;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Optional "more like this" (catalog.similar-enabled) answered from an in-memory ProductSimilarityIndex,
+ * never from Postgres. When disabled no product has similar ones.
+ * The index takes products x catalog.similar-dimensions floats (about 50 MB for 100k products and 128 dimensions).
+ * It is built when the application is ready and swapped atomically when the products table fingerprint
+ * (its last change_seq) changes, checked every catalog.similar-refresh-interval, and shortly after a change made here (CatalogIndexRefresher).
+ */
+@Service
+public class ProductSimilarityService implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductSimilarityService.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationProperties properties;
+    private final DotProduct dotProduct = DotProduct.best();
+    private final AtomicReference<ProductSimilarityIndex> index = new AtomicReference<>(ProductSimilarityIndex.empty());
+    private final AtomicReference<ProductSnapshotVersion> version = new AtomicReference<>();
+
+    ProductSimilarityService(
+            ProductRepository productRepository, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        if (properties.similarEnabled()) {
+            Gauge.builder("catalog.similar.index.products", index, i -> i.get().size())
+                    .description("Number of products in the similarity index")
+                    .register(meterRegistry);
+            Gauge.builder("catalog.similar.index.memory", index, i -> i.get().vectorsSizeInBytes())
+                    .description("Size of the TF-IDF vectors of the similarity index")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<SimilarProduct> findSimilar(String code, Integer limit) {
+        if (!properties.similarEnabled()) {
+            return List.of();
+        }
+        int maxResults = properties.similarMaxResults();
+        int size = limit == null ? maxResults : Math.clamp(limit, 1, maxResults);
+        return index.get().similar(code, size).orElseThrow(() -> ProductNotFoundException.forCode(code));
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        if (!properties.similarEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ProductSnapshotVersion loadedVersion = productRepository.findSnapshotVersion();
+        ProductSimilarityIndex rebuilt = ProductSimilarityIndex.build(
+                productRepository.findAllTexts(), properties.similarDimensions(), dotProduct);
+        index.set(rebuilt);
+        version.set(loadedVersion);
+        log.info(
+                "Built similarity index with {} products (~{} KB, {} dot product) in {} ms",
+                rebuilt.size(),
+                rebuilt.vectorsSizeInBytes() / 1024,
+                dotProduct,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional(readOnly = true)
+    public void refresh() {
+        if (!productRepository.findSnapshotVersion().equals(version.get())) {
+            reload();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable copy of the whole catalog: a hash index by code and an array in (name, id) order for the pages.
+ * The array keeps the order of the database query, so the pages are the same as the ones of Postgres
+ * (same collation), and a page is a plain array copy.
+ */
+final class ProductSnapshot {
+    private final Map<String, Product> byCode;
+    private final Product[] byName;
+    private final ProductSnapshotVersion version;
+    private final Instant loadedAt;
+
+    private ProductSnapshot(
+            Map<String, Product> byCode, Product[] byName, ProductSnapshotVersion version, Instant loadedAt) {
+        this.byCode = byCode;
+        this.byName = byName;
+        this.version = version;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * @param productsByName all the products ordered by name, id
+     */
+    static ProductSnapshot of(List<Product> productsByName, ProductSnapshotVersion version) {
+        Product[] byName = productsByName.toArray(new Product[0]);
+        Map<String, Product> byCode = HashMap.newHashMap(byName.length);
+        for (Product product : byName) {
+            byCode.put(product.code(), product);
+        }
+        return new ProductSnapshot(Map.copyOf(byCode), byName, version, Instant.now());
+    }
+
+    Optional<Product> get(String code) {
+        return Optional.ofNullable(byCode.get(code));
+    }
+
+    /**
+     * Same page as ProductService.getProducts on the database, the totals are free here.
+     * @param pageIndex zero based
+     */
+    PagedResult<Product> page(int pageIndex, int pageSize, boolean withTotals) {
+        long offset = (long) pageIndex * pageSize;
+        int from = (int) Math.min(offset, byName.length);
+        int to = Math.min(from + pageSize, byName.length);
+        int totalPages = Math.ceilDiv(byName.length, pageSize);
+        boolean hasNext = pageIndex + 1 < totalPages;
+        boolean hasPrevious = pageIndex > 0;
+        return new PagedResult<>(
+                List.of(Arrays.copyOfRange(byName, from, to)),
+                withTotals ? byName.length : PagedResult.UNKNOWN,
+                pageIndex + 1,
+                withTotals ? totalPages : PagedResult.UNKNOWN,
+                !hasPrevious,
+                !hasNext,
+                hasNext,
+                hasPrevious,
+                null,
+                null);
+    }
+
+    int size() {
+        return byName.length;
+    }
+
+    ProductSnapshotVersion version() {
+        return version;
+    }
+
+    Instant loadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,91 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Optional in-memory copy of the catalog (catalog.snapshot-enabled) answering the product page
+ * and product by code requests without the database.
+ * The snapshot is rebuilt in the background and swapped atomically, readers always see a complete snapshot.
+ * It is reloaded when the products table fingerprint (its last change_seq) changes,
+ * checked every catalog.snapshot-refresh-interval,
+ * and shortly after a change made by this instance (CatalogIndexRefresher).
+ */
+@Service
+public class ProductSnapshotService implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductSnapshotService.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationProperties properties;
+    private final AtomicReference<ProductSnapshot> snapshot = new AtomicReference<>();
+
+    ProductSnapshotService(
+            ProductRepository productRepository, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        if (properties.snapshotEnabled()) {
+            Gauge.builder(
+                            "catalog.snapshot.products",
+                            snapshot,
+                            s -> s.get() == null ? 0 : s.get().size())
+                    .description("Number of products in the in-memory catalog snapshot")
+                    .register(meterRegistry);
+            Gauge.builder("catalog.snapshot.age", snapshot, ProductSnapshotService::ageSeconds)
+                    .description("Time since the in-memory catalog snapshot was loaded")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * The current snapshot, null when the snapshot is disabled or not loaded yet.
+     */
+    ProductSnapshot current() {
+        return snapshot.get();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        if (!properties.snapshotEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ProductSnapshotVersion version = productRepository.findSnapshotVersion();
+        ProductSnapshot loaded = ProductSnapshot.of(productRepository.findAllProductsOrderedByName(), version);
+        snapshot.set(loaded);
+        log.info(
+                "Loaded catalog snapshot with {} products in {} ms",
+                loaded.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional(readOnly = true)
+    public void refresh() {
+        if (!properties.snapshotEnabled()) {
+            return;
+        }
+        ProductSnapshot current = snapshot.get();
+        if (current == null || !current.version().equals(productRepository.findSnapshotVersion())) {
+            reload();
+        }
+    }
+
+    private static double ageSeconds(AtomicReference<ProductSnapshot> snapshot) {
+        ProductSnapshot current = snapshot.get();
+        return current == null
+                ? Double.NaN
+                : Duration.between(current.loadedAt(), Instant.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,8 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * Cheap fingerprint of the products table: the last change_seq (V11) of the products and of the tombstones.
+ * Every insert and update of a product and every delete takes a new value, and the writers make them visible in
+ * increasing order, so a transaction committing late or a delete and insert keeping the same count still move it.
+ */
+record ProductSnapshotVersion(long lastChangeSeq) {}
@@ -0,0 +1,24 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Sort orders of the product listing, each one is read straight from an index (see V3 and V6 migrations),
+ * the id makes the order total so pages never overlap.
+ */
+public enum ProductSort {
+    NAME(Sort.by("name", "id")),
+    PRICE_ASC(Sort.by("price", "id")),
+    PRICE_DESC(Sort.by(Sort.Direction.DESC, "price", "id")),
+    NEWEST(Sort.by(Sort.Direction.DESC, "id"));
+
+    private final Sort sort;
+
+    ProductSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    Sort sort() {
+        return sort;
+    }
+}
@@ -0,0 +1,50 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import jakarta.persistence.criteria.Expression;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * The name prefix is matched and ordered in C collation (byte order), the only one in which the rows of a prefix
+ * are a range of the (name collate "C", id) index read in page order (V14 migration). Such a page keeps the order
+ * set here by the specification, so its Pageable has no Sort (see sort()).
+ */
+class ProductSpecifications {
+    private static final String PREFIX_COLLATION = "\"C\"";
+
+    static Specification<ProductEntity> forQuery(ProductQuery query) {
+        List<Specification<ProductEntity>> specifications = new ArrayList<>();
+        if (query.minPrice() != null) {
+            specifications.add((root, cq, cb) -> cb.greaterThanOrEqualTo(root.get("price"), query.minPrice()));
+        }
+        if (query.maxPrice() != null) {
+            specifications.add((root, cq, cb) -> cb.lessThanOrEqualTo(root.get("price"), query.maxPrice()));
+        }
+        if (query.namePrefix() != null) {
+            String pattern = escapeLike(query.namePrefix()) + "%";
+            specifications.add((root, cq, cb) -> {
+                Expression<String> name = ((HibernateCriteriaBuilder) cb).collate(root.get("name"), PREFIX_COLLATION);
+                // the count queries have no order
+                if (!Long.class.equals(cq.getResultType())) {
+                    cq.orderBy(cb.asc(name), cb.asc(root.get("id")));
+                }
+                return cb.like(name, pattern, '\\');
+            });
+        }
+        return Specification.allOf(specifications);
+    }
+
+    /**
+     * Sort of the page, unsorted when forQuery orders the rows itself.
+     */
+    static Sort sort(ProductQuery query) {
+        return query.namePrefix() != null ? Sort.unsorted() : query.sort().sort();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
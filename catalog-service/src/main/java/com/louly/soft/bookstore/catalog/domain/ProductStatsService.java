@@ -0,0 +1,147 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import jakarta.annotation.PreDestroy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Product view counters without a database write per view.
+ * Views are counted in memory with one AtomicLong per code (no lock), the deltas are taken and reset at once
+ * (getAndSet) so that no view counted meanwhile is lost, and added to the product_stats table by flush() in a single
+ * statement every catalog.popular-flush-interval.
+ * The most viewed products are kept in an in-memory PopularityRanking, updated with the totals returned by every flush
+ * and reloaded from product_stats every catalog.popular-reload-interval to include the views counted by other instances.
+ */
+@Service
+public class ProductStatsService implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductStatsService.class);
+
+    /**
+     * Adds the deltas and returns the new totals of the products which still exist.
+     */
+    private static final String ADD_VIEWS =
+            """
+            with upserted as (
+                insert into product_stats (code, views)
+                select * from unnest(?::text[], ?::bigint[])
+                on conflict (code) do update
+                set views      = product_stats.views + excluded.views,
+                    updated_at = now()
+                returning code, views
+            )
+            select u.code, p.name, u.views from upserted u join products p on p.code = u.code
+            """;
+
+    private static final String SELECT_MOST_VIEWED =
+            """
+            select s.code, p.name, s.views from product_stats s join products p on p.code = s.code
+            order by s.views desc, s.code
+            limit ?
+            """;
+
+    private static final RowMapper<PopularProduct> POPULAR_PRODUCT_MAPPER =
+            (rs, rowNum) -> new PopularProduct(rs.getString("code"), rs.getString("name"), rs.getLong("views"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties properties;
+    // one entry per viewed code, so bounded by the size of the catalog
+    private final Map<String, AtomicLong> pendingViews = new ConcurrentHashMap<>();
+    private final AtomicReference<PopularityRanking> ranking = new AtomicReference<>(PopularityRanking.empty());
+
+    ProductStatsService(JdbcTemplate jdbcTemplate, ApplicationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    public void recordView(String code) {
+        AtomicLong views = pendingViews.get(code);
+        if (views == null) {
+            views = pendingViews.computeIfAbsent(code, key -> new AtomicLong());
+        }
+        views.incrementAndGet();
+    }
+
+    public List<PopularProduct> getPopularProducts(Integer limit) {
+        int maxResults = properties.popularMaxResults();
+        int size = limit == null ? maxResults : Math.clamp(limit, 1, maxResults);
+        return ranking.get().top(size);
+    }
+
+    /**
+     * A view counted while the deltas are collected goes to the next flush.
+     * If the statement fails the deltas are put back, nothing is lost.
+     * A single statement, atomic without a transaction, so it does not depend on being called through the proxy
+     * (flushOnShutdown).
+     */
+    public void flush() {
+        List<String> codes = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        pendingViews.forEach((code, views) -> {
+            long delta = views.getAndSet(0);
+            if (delta > 0) {
+                codes.add(code);
+                deltas.add(delta);
+            }
+        });
+        if (codes.isEmpty()) {
+            return;
+        }
+        List<PopularProduct> updated;
+        try {
+            updated = jdbcTemplate.query(
+                    ADD_VIEWS,
+                    ps -> {
+                        Connection connection = ps.getConnection();
+                        Array codesArray = connection.createArrayOf("text", codes.toArray());
+                        Array deltasArray = connection.createArrayOf("bigint", deltas.toArray());
+                        ps.setArray(1, codesArray);
+                        ps.setArray(2, deltasArray);
+                    },
+                    POPULAR_PRODUCT_MAPPER);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < codes.size(); i++) {
+                pendingViews.get(codes.get(i)).addAndGet(deltas.get(i));
+            }
+            throw e;
+        }
+        // only this method and reload() write the ranking, a lost race is fixed by the next run
+        PopularityRanking current = ranking.get();
+        ranking.compareAndSet(current, current.merge(updated, properties.popularMaxResults()));
+        log.debug("Flushed the views of {} products", codes.size());
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        ranking.set(PopularityRanking.of(
+                jdbcTemplate.query(SELECT_MOST_VIEWED, POPULAR_PRODUCT_MAPPER, properties.popularMaxResults())));
+    }
+
+    /**
+     * The views counted since the last flush are written on a graceful shutdown.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush the product views on shutdown", e);
+        }
+    }
+}
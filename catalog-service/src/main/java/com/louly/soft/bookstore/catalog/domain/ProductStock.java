@@ -0,0 +1,11 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * A product without stock row has a quantity of 0.
+ */
+public record ProductStock(String code, long quantity, long reserved, long available) {
+
+    ProductStock(String code, long quantity, long reserved) {
+        this(code, quantity, reserved, quantity - reserved);
+    }
+}
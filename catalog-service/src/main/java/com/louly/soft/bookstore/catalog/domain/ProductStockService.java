@@ -0,0 +1,589 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stock reservations without one row lock per reservation, so that a hot product does not serialize its buyers.
+ * reserve() checks the stock in memory (one StripedStockCounter per product, no lock) and queues the reservation,
+ * a single writer thread then decides and writes everything queued in one transaction (group commit):
+ * while a batch is written the next one is queued, so the batches grow with the load, the row locks do not.
+ * A reservation is only acknowledged (its future completed) once its batch is committed: a crash loses none
+ * of the acknowledged ones, and the counters are rebuilt from product_stock on startup.
+ * The counters only keep the hopeless requests away from the database. The writer decides on the locked rows
+ * and never takes reserved above quantity, so the instances, each with its own counters, cannot oversell.
+ * The counters are set again from product_stock after each batch and every catalog.stock-sync-interval.
+ * Every reservation is a row of product_stock_reservations written in its batch, released with its id and only once.
+ * A reservation with an idempotency key that was already committed for the product is not made again, the first one
+ * is returned: the writer looks the keys up on the locked rows, so concurrent retries, even on other instances,
+ * cannot reserve twice.
+ */
+@Service
+public class ProductStockService {
+    private static final Logger log = LoggerFactory.getLogger(ProductStockService.class);
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private static final String SELECT_STOCK =
+            """
+            select p.code, coalesce(s.quantity, 0) as quantity, coalesce(s.reserved, 0) as reserved
+            from products p left join product_stock s on s.code = p.code
+            where p.code = any(?::text[])
+            """;
+
+    private static final String SELECT_ALL_STOCK = "select code, quantity, reserved from product_stock";
+
+    /**
+     * Always locked in code order, the batches of the instances cannot deadlock.
+     */
+    private static final String LOCK_STOCK =
+            """
+            select code, quantity, reserved from product_stock
+            where code = any(?::text[])
+            order by code
+            for update
+            """;
+
+    private static final String UPDATE_RESERVED =
+            """
+            update product_stock s
+            set reserved   = c.reserved,
+                updated_at = now()
+            from unnest(?::text[], ?::bigint[]) as c(code, reserved)
+            where s.code = c.code
+            """;
+
+    private static final String SELECT_RESERVATION =
+            "select id, code, quantity, released_at from product_stock_reservations where id = ?";
+
+    private static final String SELECT_RESERVATIONS_BY_KEY =
+            """
+            select r.id, r.code, r.quantity, r.idempotency_key
+            from product_stock_reservations r
+            join unnest(?::text[], ?::text[]) as k(code, idempotency_key)
+              on r.code = k.code and r.idempotency_key = k.idempotency_key
+            """;
+
+    private static final String INSERT_RESERVATIONS =
+            """
+            insert into product_stock_reservations (id, code, quantity, idempotency_key)
+            select * from unnest(?::uuid[], ?::text[], ?::bigint[], ?::text[])
+            """;
+
+    /**
+     * Only the reservations not released yet are returned, a reservation is released once whoever asks.
+     */
+    private static final String RELEASE_RESERVATIONS =
+            """
+            update product_stock_reservations
+            set released_at = now()
+            where id = any(?::uuid[]) and released_at is null
+            returning id
+            """;
+
+    private static final String SET_QUANTITY =
+            """
+            insert into product_stock (code, quantity)
+            select code, ? from products where code = ?
+            on conflict (code) do update
+            set quantity   = excluded.quantity,
+                updated_at = now()
+            where product_stock.reserved <= excluded.quantity
+            returning code, quantity, reserved
+            """;
+
+    private static final RowMapper<ProductStock> PRODUCT_STOCK_MAPPER =
+            (rs, rowNum) -> new ProductStock(rs.getString("code"), rs.getLong("quantity"), rs.getLong("reserved"));
+
+    private static final RowMapper<StockReservation> STOCK_RESERVATION_MAPPER = (rs, rowNum) ->
+            new StockReservation(rs.getObject("id", UUID.class), rs.getString("code"), rs.getLong("quantity"));
+
+    /**
+     * A reservation (positive quantity) or the release of one (negative quantity), completed once written,
+     * with the reservation for a reservation and null for a release.
+     */
+    private record StockChange(
+            UUID reservationId,
+            String code,
+            long quantity,
+            String idempotencyKey,
+            CompletableFuture<StockReservation> result) {
+
+        private boolean isReservation() {
+            return quantity > 0;
+        }
+
+        private StockReservation reservation() {
+            return new StockReservation(reservationId, code, quantity);
+        }
+    }
+
+    private record ReservationRow(String code, long quantity, boolean released) {}
+
+    private static final RowMapper<ReservationRow> RESERVATION_ROW_MAPPER = (rs, rowNum) ->
+            new ReservationRow(rs.getString("code"), rs.getLong("quantity"), rs.getTimestamp("released_at") != null);
+
+    /**
+     * What the writer decided for the changes of a batch that are not simply applied: the refused reservations,
+     * the releases of reservations already released, the reservations whose idempotency key was already committed
+     * (with the committed reservation), and the ones repeating the key of an earlier reservation of the same batch
+     * (with that reservation, whose fate they share).
+     */
+    private record BatchOutcome(
+            Set<StockChange> refused,
+            Set<StockChange> ignoredReleases,
+            Map<StockChange, StockReservation> replayed,
+            Map<StockChange, StockChange> duplicates) {
+
+        private BatchOutcome() {
+            this(new HashSet<>(), new HashSet<>(), new HashMap<>(), new HashMap<>());
+        }
+
+        private boolean isApplied(StockChange change) {
+            return !ignoredReleases.contains(change)
+                    && !replayed.containsKey(change)
+                    && !duplicates.containsKey(change);
+        }
+
+        private boolean isNewReservation(StockChange change) {
+            return change.isReservation() && isApplied(change) && !refused.contains(change);
+        }
+
+        private void complete(StockChange change) {
+            StockChange first = duplicates.getOrDefault(change, change);
+            StockReservation committed = replayed.get(first);
+            if (committed != null) {
+                change.result().complete(committed);
+            } else if (refused.contains(first)) {
+                change.result()
+                        .completeExceptionally(
+                                InsufficientStockException.forReservation(change.code(), change.quantity()));
+            } else {
+                change.result().complete(first.isReservation() ? first.reservation() : null);
+            }
+        }
+    }
+
+    private static final class Stock {
+        private final StripedStockCounter counter;
+        // reserved minus released quantities queued and not written yet
+        private final LongAdder queued = new LongAdder();
+
+        private Stock(StripedStockCounter counter) {
+            this.counter = counter;
+        }
+
+        private void reset(ProductStock stock) {
+            counter.set(stock.available() - queued.sum());
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties properties;
+    private final int stripes = Runtime.getRuntime().availableProcessors();
+    // one entry per reserved code, so bounded by the size of the catalog
+    private final Map<String, Stock> stocks = new ConcurrentHashMap<>();
+    private final BlockingQueue<StockChange> changes = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+    private Thread writer;
+
+    ProductStockService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ApplicationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.batchSizes = DistributionSummary.builder("catalog.stock.batch.size")
+                .description("Number of reservations and releases written in one transaction")
+                .register(meterRegistry);
+        Gauge.builder("catalog.stock.queue", changes, BlockingQueue::size)
+                .description("Number of reservations and releases waiting for the next batch")
+                .register(meterRegistry);
+    }
+
+    public ProductStock getStock(String code) {
+        return selectStock(List.of(code)).stream()
+                .findFirst()
+                .orElseThrow(() -> ProductNotFoundException.forCode(code));
+    }
+
+    /**
+     * Completed with the reservation once it is committed, or failed with an InsufficientStockException.
+     * With an idempotency key (may be null) a reservation already made with the same key for this product is returned
+     * instead. Such a retry is always left to the writer, even when the counter says the stock is short:
+     * the stock it reserved the first time may be the one missing.
+     */
+    public CompletableFuture<StockReservation> reserve(String code, long quantity, String idempotencyKey) {
+        Stock stock = stock(code);
+        if (!stock.counter.tryReserve(quantity) && idempotencyKey == null) {
+            return CompletableFuture.failedFuture(InsufficientStockException.forReservation(code, quantity));
+        }
+        return enqueue(
+                stock, new StockChange(UUID.randomUUID(), code, quantity, idempotencyKey, new CompletableFuture<>()));
+    }
+
+    /**
+     * Returns the stock of a reservation, completed once written. Releasing a reservation already released
+     * does nothing, whether it was released before or concurrently.
+     */
+    public CompletableFuture<Void> release(UUID reservationId) {
+        ReservationRow reservation =
+                jdbcTemplate.query(SELECT_RESERVATION, RESERVATION_ROW_MAPPER, reservationId).stream()
+                        .findFirst()
+                        .orElseThrow(() -> StockReservationNotFoundException.forId(reservationId));
+        if (reservation.released()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Stock stock = stock(reservation.code());
+        stock.counter.release(reservation.quantity());
+        return enqueue(
+                        stock,
+                        new StockChange(
+                                reservationId,
+                                reservation.code(),
+                                -reservation.quantity(),
+                                null,
+                                new CompletableFuture<>()))
+                .thenApply(released -> null);
+    }
+
+    /**
+     * Sets the stock on hand, it cannot go below the reserved quantity.
+     */
+    public ProductStock setQuantity(String code, long quantity) {
+        List<ProductStock> updated = jdbcTemplate.query(SET_QUANTITY, PRODUCT_STOCK_MAPPER, quantity, code);
+        if (updated.isEmpty()) {
+            ProductStock current = getStock(code);
+            throw InsufficientStockException.forReservedQuantity(code, quantity, current.reserved());
+        }
+        ProductStock stock = updated.getFirst();
+        Stock cached = stocks.get(code);
+        if (cached != null) {
+            cached.reset(stock);
+        }
+        return stock;
+    }
+
+    /**
+     * Nothing is acknowledged before it is committed, so the stock in product_stock is exact whatever happened
+     * before a restart: the counters are only loaded again.
+     * Only the reservations need the counters and the writer, without catalog.stock-reservations-enabled
+     * the stock is only read and set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.stockReservationsEnabled()) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_ALL_STOCK, PRODUCT_STOCK_MAPPER).forEach(stock -> stocks.computeIfAbsent(
+                        stock.code(), code -> new Stock(new StripedStockCounter(stripes, 0)))
+                .reset(stock));
+        log.info("Loaded the stock of {} products", stocks.size());
+        running = true;
+        writer = Thread.ofPlatform().name("stock-writer").daemon().start(this::writeChanges);
+    }
+
+    /**
+     * The reservations queued before the shutdown are still written.
+     */
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(properties.stockSyncInterval().toMillis() + POLL_TIMEOUT_MILLIS * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The stock row is read outside of the map, a query in computeIfAbsent would hold the lock of the map bin
+     * (and the other codes of that bin) for its duration. The first counter put wins.
+     */
+    private Stock stock(String code) {
+        Stock stock = stocks.get(code);
+        if (stock == null) {
+            ProductStock current = getStock(code);
+            Stock loaded = new Stock(new StripedStockCounter(stripes, current.available()));
+            stock = stocks.putIfAbsent(code, loaded);
+            if (stock == null) {
+                stock = loaded;
+            }
+        }
+        return stock;
+    }
+
+    private CompletableFuture<StockReservation> enqueue(Stock stock, StockChange change) {
+        stock.queued.add(change.quantity());
+        changes.add(change);
+        return change.result();
+    }
+
+    private void writeChanges() {
+        List<StockChange> batch = new ArrayList<>();
+        long nextSync = System.nanoTime() + properties.stockSyncInterval().toNanos();
+        while (running || !changes.isEmpty()) {
+            try {
+                StockChange first = changes.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    changes.drainTo(batch, properties.stockMaxBatchSize() - 1);
+                    if (!write(batch)) {
+                        nextSync = System.nanoTime();
+                    }
+                    batch.clear();
+                }
+                if (System.nanoTime() - nextSync >= 0) {
+                    sync();
+                    nextSync =
+                            System.nanoTime() + properties.stockSyncInterval().toNanos();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not sync the stock counters", e);
+            }
+        }
+    }
+
+    /**
+     * The rows are locked, the releases and the idempotency keys checked, the changes applied in memory,
+     * and the new reservations and reserved quantities written in one statement each.
+     * The futures are completed after the commit.
+     * If the batch fails its changes fail as well, and the counters must be synced again.
+     */
+    private boolean write(List<StockChange> batch) {
+        Map<String, List<StockChange>> changesByCode = new TreeMap<>();
+        for (StockChange change : batch) {
+            changesByCode
+                    .computeIfAbsent(change.code(), code -> new ArrayList<>())
+                    .add(change);
+        }
+        Map<String, ProductStock> written;
+        BatchOutcome outcome = new BatchOutcome();
+        try {
+            Object[] codes = changesByCode.keySet().toArray();
+            written = transactionTemplate.execute(status -> {
+                List<ProductStock> locked = jdbcTemplate.query(
+                        LOCK_STOCK,
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", codes)),
+                        PRODUCT_STOCK_MAPPER);
+                releaseReservations(batch, outcome);
+                findReplays(batch, outcome);
+                Map<String, ProductStock> updated = HashMap.newHashMap(locked.size());
+                for (ProductStock stock : locked) {
+                    updated.put(stock.code(), apply(stock, changesByCode.get(stock.code()), outcome));
+                }
+                // without stock row the product has no stock: its reservations are refused
+                changesByCode.forEach((code, codeChanges) -> {
+                    if (!updated.containsKey(code)) {
+                        codeChanges.stream()
+                                .filter(change -> change.isReservation() && outcome.isApplied(change))
+                                .forEach(outcome.refused()::add);
+                    }
+                });
+                insertReservations(batch, outcome);
+                Object[] reserved =
+                        updated.values().stream().map(ProductStock::reserved).toArray();
+                jdbcTemplate.update(UPDATE_RESERVED, ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setArray(
+                            1, connection.createArrayOf("text", updated.keySet().toArray()));
+                    ps.setArray(2, connection.createArrayOf("bigint", reserved));
+                });
+                return updated;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} stock changes", batch.size(), e);
+            changesByCode.forEach(this::dequeue);
+            batch.forEach(change -> change.result().completeExceptionally(e));
+            return false;
+        }
+        batchSizes.record(batch.size());
+        changesByCode.forEach((code, codeChanges) -> {
+            Stock stock = dequeue(code, codeChanges);
+            if (stock != null) {
+                // no stock row: the product has no stock
+                stock.reset(written.getOrDefault(code, new ProductStock(code, 0, 0)));
+            }
+        });
+        batch.forEach(outcome::complete);
+        return true;
+    }
+
+    /**
+     * Marks the reservations released, the releases of the ones already released are ignored.
+     */
+    private void releaseReservations(List<StockChange> batch, BatchOutcome outcome) {
+        List<StockChange> releases =
+                batch.stream().filter(change -> !change.isReservation()).toList();
+        if (releases.isEmpty()) {
+            return;
+        }
+        UUID[] ids = releases.stream().map(StockChange::reservationId).toArray(UUID[]::new);
+        Set<UUID> released = new HashSet<>(jdbcTemplate.query(
+                RELEASE_RESERVATIONS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids)),
+                (rs, rowNum) -> rs.getObject("id", UUID.class)));
+        for (StockChange release : releases) {
+            // a reservation released twice in the same batch is only released by the first release
+            if (!released.remove(release.reservationId())) {
+                outcome.ignoredReleases().add(release);
+            }
+        }
+    }
+
+    /**
+     * The reservations are locked by their stock rows, so the keys committed meanwhile are seen here.
+     */
+    private void findReplays(List<StockChange> batch, BatchOutcome outcome) {
+        Map<List<String>, StockChange> firstByKey = new HashMap<>();
+        for (StockChange change : batch) {
+            if (change.isReservation() && change.idempotencyKey() != null) {
+                StockChange first = firstByKey.putIfAbsent(List.of(change.code(), change.idempotencyKey()), change);
+                if (first != null) {
+                    outcome.duplicates().put(change, first);
+                }
+            }
+        }
+        if (firstByKey.isEmpty()) {
+            return;
+        }
+        Object[] codes = firstByKey.keySet().stream().map(List::getFirst).toArray();
+        Object[] keys = firstByKey.keySet().stream().map(List::getLast).toArray();
+        jdbcTemplate.query(
+                SELECT_RESERVATIONS_BY_KEY,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("text", codes));
+                    ps.setArray(2, ps.getConnection().createArrayOf("text", keys));
+                },
+                (RowCallbackHandler) rs -> outcome.replayed()
+                        .put(
+                                firstByKey.get(List.of(rs.getString("code"), rs.getString("idempotency_key"))),
+                                STOCK_RESERVATION_MAPPER.mapRow(rs, 0)));
+    }
+
+    private void insertReservations(List<StockChange> batch, BatchOutcome outcome) {
+        List<StockChange> reservations =
+                batch.stream().filter(outcome::isNewReservation).toList();
+        if (reservations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(INSERT_RESERVATIONS, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(
+                    1,
+                    connection.createArrayOf(
+                            "uuid",
+                            reservations.stream()
+                                    .map(StockChange::reservationId)
+                                    .toArray()));
+            ps.setArray(
+                    2,
+                    connection.createArrayOf(
+                            "text", reservations.stream().map(StockChange::code).toArray()));
+            ps.setArray(
+                    3,
+                    connection.createArrayOf(
+                            "bigint",
+                            reservations.stream().map(StockChange::quantity).toArray()));
+            ps.setArray(
+                    4,
+                    connection.createArrayOf(
+                            "text",
+                            reservations.stream()
+                                    .map(StockChange::idempotencyKey)
+                                    .toArray()));
+        });
+    }
+
+    /**
+     * Releases first, then the reservations in their order while the stock lasts.
+     * The ignored releases and the replayed reservations change nothing.
+     */
+    private static ProductStock apply(ProductStock stock, List<StockChange> changes, BatchOutcome outcome) {
+        long reserved = stock.reserved();
+        for (StockChange change : changes) {
+            if (!change.isReservation() && outcome.isApplied(change)) {
+                reserved = Math.max(reserved + change.quantity(), 0);
+            }
+        }
+        for (StockChange change : changes) {
+            if (change.isReservation() && outcome.isApplied(change)) {
+                if (reserved + change.quantity() <= stock.quantity()) {
+                    reserved += change.quantity();
+                } else {
+                    outcome.refused().add(change);
+                }
+            }
+        }
+        return new ProductStock(stock.code(), stock.quantity(), reserved);
+    }
+
+    private Stock dequeue(String code, List<StockChange> codeChanges) {
+        Stock stock = stocks.get(code);
+        if (stock != null) {
+            stock.queued.add(
+                    -codeChanges.stream().mapToLong(StockChange::quantity).sum());
+        }
+        return stock;
+    }
+
+    /**
+     * Takes the reservations of the other instances into account, drops the counters of the deleted products.
+     */
+    private void sync() {
+        if (stocks.isEmpty()) {
+            return;
+        }
+        Map<String, ProductStock> current = new HashMap<>();
+        selectStock(List.copyOf(stocks.keySet())).forEach(stock -> current.put(stock.code(), stock));
+        stocks.entrySet().removeIf(entry -> !current.containsKey(entry.getKey()));
+        current.forEach((code, stock) -> {
+            Stock cached = stocks.get(code);
+            if (cached != null) {
+                cached.reset(stock);
+            }
+        });
+    }
+
+    private List<ProductStock> selectStock(List<String> codes) {
+        return jdbcTemplate.query(
+                SELECT_STOCK,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", codes.toArray())),
+                PRODUCT_STOCK_MAPPER);
+    }
+}
@@ -0,0 +1,3 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+public record ProductSuggestion(String code, String name) {}
@@ -0,0 +1,73 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Search-as-you-type suggestions answered from an in-memory SuggestionIndex, never from Postgres.
+ * The index is built when the application is ready and then swapped atomically by the refresh methods:
+ * refresh() only loads the products added since the last load (id watermark) and merges them,
+ * reload() rebuilds everything to pick up renamed and deleted products, every catalog.suggest-reload-interval
+ * and shortly after a change made here (CatalogIndexRefresher).
+ */
+@Service
+public class ProductSuggestionService implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestionService.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationProperties properties;
+    private final AtomicReference<SuggestionIndex> index = new AtomicReference<>(SuggestionIndex.empty());
+
+    ProductSuggestionService(
+            ProductRepository productRepository, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        Gauge.builder("catalog.suggest.index.products", index, i -> i.get().size())
+                .description("Number of products in the suggestion index")
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.index.memory", index, i -> i.get().estimatedMemoryBytes())
+                .description("Estimated memory used by the suggestion index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, Integer limit) {
+        int maxResults = properties.suggestMaxResults();
+        int size = limit == null ? maxResults : Math.clamp(limit, 1, maxResults);
+        return index.get().suggest(prefix, size);
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        long start = System.nanoTime();
+        SuggestionIndex rebuilt = SuggestionIndex.build(productRepository.findAllNames());
+        index.set(rebuilt);
+        log.info(
+                "Built suggestion index with {} products (~{} KB) in {} ms",
+                rebuilt.size(),
+                rebuilt.estimatedMemoryBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional(readOnly = true)
+    public void refresh() {
+        SuggestionIndex current = index.get();
+        List<ProductName> added = productRepository.findNamesByIdGreaterThan(current.maxId());
+        if (!added.isEmpty()) {
+            // only this method and reload() write the index, a lost race is fixed by the next run
+            index.compareAndSet(current, current.merge(added));
+            log.debug("Added {} products to the suggestion index", added.size());
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * Lightweight projection used to build the in-memory similarity index.
+ */
+record ProductText(String code, String name, String description) {}
@@ -0,0 +1,8 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * Published (in-process) after products were written outside of the regular JPA read path,
+ * so the caches of this instance are cleared and its in-memory indexes rebuilt (CatalogIndexRefresher) without
+ * waiting for their schedule.
+ */
+public record ProductsChangedEvent(long changedProducts) {}
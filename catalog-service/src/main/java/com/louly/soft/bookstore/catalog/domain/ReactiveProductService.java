@@ -0,0 +1,136 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import io.r2dbc.spi.Readable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Product listing and lookup by code of the reactive profile, read with R2DBC:
+ * no request thread nor connection is held while postgres answers, a few event loop threads serve every request.
+ * Same results as ProductService for the unfiltered pages, the in-memory snapshot included when it is enabled.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+    private static final String SELECT_PRODUCTS =
+            "select code, name, description, image_url, price, category, author, version from products";
+
+    private final DatabaseClient databaseClient;
+    private final ProductSnapshotService productSnapshotService;
+    private final ProductCountCache productCountCache;
+    private final ProductCodeFilterService productCodeFilterService;
+    private final ApplicationProperties properties;
+
+    ReactiveProductService(
+            DatabaseClient databaseClient,
+            ProductSnapshotService productSnapshotService,
+            ProductCountCache productCountCache,
+            ProductCodeFilterService productCodeFilterService,
+            ApplicationProperties properties) {
+        this.databaseClient = databaseClient;
+        this.productSnapshotService = productSnapshotService;
+        this.productCountCache = productCountCache;
+        this.productCodeFilterService = productCodeFilterService;
+        this.properties = properties;
+    }
+
+    public Mono<PagedResult<Product>> getProducts(int pageNo, TotalCountMode countMode, ProductSort sort) {
+        int pageIndex = pageNo <= 1 ? 0 : pageNo - 1;
+        ProductSort order = sort == null ? ProductSort.NAME : sort;
+        ProductSnapshot snapshot = productSnapshotService.current();
+        if (snapshot != null && order == ProductSort.NAME) {
+            return Mono.just(snapshot.page(pageIndex, properties.pageSize(), countMode != TotalCountMode.NONE));
+        }
+        int pageSize = properties.pageSize();
+        long offset = (long) pageIndex * pageSize;
+        // one extra row tells if there is a next page without counting
+        Mono<List<Product>> rows = databaseClient
+                .sql(SELECT_PRODUCTS + " order by " + orderBy(order.sort()) + " limit :limit offset :offset")
+                .bind("limit", pageSize + 1)
+                .bind("offset", offset)
+                .map(ReactiveProductService::toProduct)
+                .all()
+                .collectList();
+        Mono<Long> totalElements =
+                switch (countMode) {
+                    case EXACT ->
+                        databaseClient
+                                .sql("select count(*) from products")
+                                .map(row -> row.get(0, Long.class))
+                                .one();
+                    // the count cache only queries postgres when it has no value yet, off the event loop
+                    case ESTIMATED ->
+                        Mono.fromCallable(productCountCache::getCount).subscribeOn(Schedulers.boundedElastic());
+                    case NONE -> Mono.just((long) PagedResult.UNKNOWN);
+                };
+        return Mono.zip(rows, totalElements).map(result -> {
+            List<Product> products = result.getT1();
+            boolean hasNext = products.size() > pageSize;
+            long total = result.getT2();
+            if (countMode == TotalCountMode.ESTIMATED) {
+                // the estimate can lag behind, it never goes below what this page proves to exist
+                total = Math.max(total, offset + products.size());
+            }
+            boolean withTotals = countMode != TotalCountMode.NONE;
+            return new PagedResult<>(
+                    hasNext ? products.subList(0, pageSize) : products,
+                    total,
+                    pageIndex + 1,
+                    withTotals ? (int) Math.ceilDiv(total, pageSize) : PagedResult.UNKNOWN,
+                    pageIndex == 0,
+                    !hasNext,
+                    hasNext,
+                    pageIndex > 0,
+                    null,
+                    null);
+        });
+    }
+
+    /**
+     * Empty when there is no product with this code, without a query when the Bloom filter knows it is unknown.
+     */
+    public Mono<Product> getProductByCode(String code) {
+        ProductSnapshot snapshot = productSnapshotService.current();
+        if (snapshot != null) {
+            return Mono.justOrEmpty(snapshot.get(code));
+        }
+        if (!productCodeFilterService.mightExist(code)) {
+            return Mono.empty();
+        }
+        return databaseClient
+                .sql(SELECT_PRODUCTS + " where code = :code")
+                .bind("code", code)
+                .map(ReactiveProductService::toProduct)
+                .one()
+                .switchIfEmpty(Mono.fromRunnable(productCodeFilterService::recordFalsePositive));
+    }
+
+    /**
+     * The properties of the ProductSort orders are named like their columns.
+     */
+    private static String orderBy(Sort sort) {
+        return sort.stream()
+                .map(order -> order.getProperty() + (order.isAscending() ? " asc" : " desc"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static Product toProduct(Readable row) {
+        return new Product(
+                row.get("code", String.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("image_url", String.class),
+                row.get("price", BigDecimal.class),
+                row.get("category", String.class),
+                row.get("author", String.class),
+                row.get("version", Long.class));
+    }
+}
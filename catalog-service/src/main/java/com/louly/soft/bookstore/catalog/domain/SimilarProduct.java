@@ -0,0 +1,6 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * @param score cosine similarity of the TF-IDF vectors, 1 for the same words with the same weights
+ */
+public record SimilarProduct(String code, String name, float score) {}
@@ -0,0 +1,8 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.UUID;
+
+/**
+ * A committed reservation, released with its id.
+ */
+public record StockReservation(UUID id, String code, long quantity) {}
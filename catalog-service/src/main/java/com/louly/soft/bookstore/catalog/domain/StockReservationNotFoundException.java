@@ -0,0 +1,13 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.UUID;
+
+public class StockReservationNotFoundException extends RuntimeException {
+    public StockReservationNotFoundException(String message) {
+        super(message);
+    }
+
+    public static StockReservationNotFoundException forId(UUID id) {
+        return new StockReservationNotFoundException("Stock reservation " + id + " not found");
+    }
+}
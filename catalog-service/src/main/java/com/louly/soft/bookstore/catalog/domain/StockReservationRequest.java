@@ -0,0 +1,11 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Body of the reservations.
+ */
+public record StockReservationRequest(
+        @NotBlank(message = "Product code is required") String code,
+        @Min(value = 1, message = "Quantity must be at least 1") long quantity) {}
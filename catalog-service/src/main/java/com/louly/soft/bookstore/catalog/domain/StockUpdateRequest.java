@@ -0,0 +1,5 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import jakarta.validation.constraints.Min;
+
+public record StockUpdateRequest(@Min(value = 0, message = "Quantity must not be negative") long quantity) {}
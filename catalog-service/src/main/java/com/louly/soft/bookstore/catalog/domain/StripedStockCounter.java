@@ -0,0 +1,100 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available stock of one product split across stripes, so that the concurrent reservations of a hot product
+ * update different memory locations instead of all retrying a CAS on the same one.
+ * LongAdder does the same for counters, but cannot refuse a decrement that would take the sum below zero.
+ * A reservation takes its quantity from the stripe of its thread, or from the next stripes when it is short,
+ * and only locks the counter when no single stripe has enough: the stock of every stripe is then gathered,
+ * the reservation taken from the total and the rest spread again.
+ * The stripes are 16 longs (two cache lines) apart so that they never share a cache line.
+ */
+final class StripedStockCounter {
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * @param stripes rounded up to a power of two
+     */
+    StripedStockCounter(int stripes, long available) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.cells = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+        spread(available);
+    }
+
+    boolean tryReserve(long quantity) {
+        int start = stripe();
+        for (int i = 0; i <= mask; i++) {
+            int index = ((start + i) & mask) * PADDING;
+            long current = cells.get(index);
+            while (current >= quantity) {
+                long witness = cells.compareAndExchange(index, current, current - quantity);
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+        }
+        return reserveFromAllStripes(quantity);
+    }
+
+    void release(long quantity) {
+        cells.getAndAdd(stripe() * PADDING, quantity);
+    }
+
+    /**
+     * Replaces the available stock, the reservations and releases racing with it are lost.
+     */
+    synchronized void set(long available) {
+        gather();
+        spread(Math.max(available, 0));
+    }
+
+    long available() {
+        long available = 0;
+        for (int i = 0; i <= mask; i++) {
+            available += cells.get(i * PADDING);
+        }
+        return available;
+    }
+
+    /**
+     * Stripes emptied by gather() only make the fast path fail and wait here,
+     * the releases made meanwhile are added to the stripes and kept.
+     */
+    private synchronized boolean reserveFromAllStripes(long quantity) {
+        long available = gather();
+        boolean reserved = available >= quantity;
+        spread(reserved ? available - quantity : available);
+        return reserved;
+    }
+
+    private long gather() {
+        long available = 0;
+        for (int i = 0; i <= mask; i++) {
+            available += cells.getAndSet(i * PADDING, 0);
+        }
+        return available;
+    }
+
+    private void spread(long available) {
+        int stripes = mask + 1;
+        long share = available / stripes;
+        long remainder = available % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.getAndAdd(i * PADDING, i < remainder ? share + 1 : share);
+        }
+    }
+
+    /**
+     * Stable per thread, spread with the golden ratio so that consecutive thread ids land on different stripes.
+     */
+    private int stripe() {
+        return (int) ((Thread.currentThread().threadId() * 0x9E37_79B9_7F4A_7C15L) >>> 32) & mask;
+    }
+}
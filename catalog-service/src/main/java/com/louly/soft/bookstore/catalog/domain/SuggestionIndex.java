@@ -0,0 +1,294 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable sorted-array prefix index over the product names.
+ * Every word start of a (normalized) name is an entry, so "gam" suggests "The Hunger Games" as well.
+ * An entry is packed in a long (product ordinal in the high 32 bits, offset of the word in the low 32 bits)
+ * and the entries are sorted by the text starting at that offset,
+ * so a lookup is a binary search for the first entry >= prefix followed by a short scan.
+ * No substring is ever allocated, the memory is the names themselves plus 8 bytes per word.
+ */
+final class SuggestionIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final long[] ids;
+    private final String[] codes;
+    private final String[] names;
+    private final String[] keys;
+    private final long[] entries;
+
+    private SuggestionIndex(long[] ids, String[] codes, String[] names, String[] keys, long[] entries) {
+        this.ids = ids;
+        this.codes = codes;
+        this.names = names;
+        this.keys = keys;
+        this.entries = entries;
+    }
+
+    static SuggestionIndex empty() {
+        return build(List.of());
+    }
+
+    static SuggestionIndex build(List<ProductName> products) {
+        int size = products.size();
+        long[] ids = new long[size];
+        String[] codes = new String[size];
+        String[] names = new String[size];
+        String[] keys = new String[size];
+        int entryCount = 0;
+        for (int i = 0; i < size; i++) {
+            entryCount += set(products.get(i), i, ids, codes, names, keys);
+        }
+
+        long[] entries = new long[entryCount];
+        int next = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            next = addWordStarts(keys[ordinal], ordinal, entries, next);
+        }
+        SuggestionIndex index = new SuggestionIndex(ids, codes, names, keys, entries);
+        index.sort(entries);
+        return index;
+    }
+
+    /**
+     * New index containing the products of this one plus the given ones.
+     * Products already present (same id) are replaced, so it also picks up renamed products.
+     * The entries of this index stay sorted when the replaced products are dropped (the ordinals of the others
+     * keep their order), so only the entries of the given products are sorted, then merged with them in one pass:
+     * O(entries + changed log changed) instead of a full sort.
+     */
+    SuggestionIndex merge(List<ProductName> changed) {
+        if (changed.isEmpty()) {
+            return this;
+        }
+        long[] changedIds = changed.stream().mapToLong(ProductName::id).sorted().toArray();
+        // ordinal in the new index of every product of this one, -1 when replaced
+        int[] ordinals = new int[ids.length];
+        int kept = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ordinals[i] = Arrays.binarySearch(changedIds, ids[i]) >= 0 ? -1 : kept++;
+        }
+
+        int size = kept + changed.size();
+        long[] newIds = new long[size];
+        String[] newCodes = new String[size];
+        String[] newNames = new String[size];
+        String[] newKeys = new String[size];
+        for (int i = 0; i < ids.length; i++) {
+            if (ordinals[i] >= 0) {
+                newIds[ordinals[i]] = ids[i];
+                newCodes[ordinals[i]] = codes[i];
+                newNames[ordinals[i]] = names[i];
+                newKeys[ordinals[i]] = keys[i];
+            }
+        }
+        int addedCount = 0;
+        for (int i = 0; i < changed.size(); i++) {
+            addedCount += set(changed.get(i), kept + i, newIds, newCodes, newNames, newKeys);
+        }
+        long[] added = new long[addedCount];
+        int next = 0;
+        for (int ordinal = kept; ordinal < size; ordinal++) {
+            next = addWordStarts(newKeys[ordinal], ordinal, added, next);
+        }
+
+        long[] keptEntries = new long[entries.length];
+        int keptCount = 0;
+        for (long entry : entries) {
+            int ordinal = ordinals[ordinal(entry)];
+            if (ordinal >= 0) {
+                keptEntries[keptCount++] = ((long) ordinal << 32) | offset(entry);
+            }
+        }
+
+        SuggestionIndex index =
+                new SuggestionIndex(newIds, newCodes, newNames, newKeys, new long[keptCount + addedCount]);
+        index.sort(added);
+        index.merge(keptEntries, keptCount, added);
+        return index;
+    }
+
+    List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix).strip();
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<ProductSuggestion> suggestions = new ArrayList<>(limit);
+        Set<Integer> seen = new HashSet<>();
+        for (int i = lowerBound(key); i < entries.length && suggestions.size() < limit; i++) {
+            int ordinal = ordinal(entries[i]);
+            if (!keys[ordinal].startsWith(key, offset(entries[i]))) {
+                break;
+            }
+            if (seen.add(ordinal)) {
+                suggestions.add(new ProductSuggestion(codes[ordinal], names[ordinal]));
+            }
+        }
+        return suggestions;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long maxId() {
+        return Arrays.stream(ids).max().orElse(0);
+    }
+
+    /**
+     * Rough retained size: arrays plus the strings, assuming compressed oops and compact (latin1) strings.
+     */
+    long estimatedMemoryBytes() {
+        long bytes = arrayBytes(8, ids.length) + 3 * arrayBytes(4, ids.length) + arrayBytes(8, entries.length);
+        for (int i = 0; i < ids.length; i++) {
+            bytes += stringBytes(codes[i]) + stringBytes(names[i]);
+            if (keys[i] != names[i]) {
+                bytes += stringBytes(keys[i]);
+            }
+        }
+        return bytes;
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSuffix(keys[ordinal(entries[mid])], offset(entries[mid]), prefix, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void sort(long[] values) {
+        long[] buffer = new long[values.length];
+        mergeSort(values, buffer, 0, values.length);
+    }
+
+    /**
+     * Fills the entries with the first count sorted values of a and the sorted values of b.
+     */
+    private void merge(long[] a, int count, long[] b) {
+        int left = 0;
+        int right = 0;
+        for (int i = 0; i < entries.length; i++) {
+            if (right >= b.length || (left < count && compareEntries(a[left], b[right]) <= 0)) {
+                entries[i] = a[left++];
+            } else {
+                entries[i] = b[right++];
+            }
+        }
+    }
+
+    private void mergeSort(long[] values, long[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(values, buffer, from, middle);
+        mergeSort(values, buffer, middle, to);
+        if (compareEntries(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compareEntries(buffer[left], buffer[right]) <= 0)) {
+                values[i] = buffer[left++];
+            } else {
+                values[i] = buffer[right++];
+            }
+        }
+    }
+
+    private int compareEntries(long a, long b) {
+        int result = compareSuffix(keys[ordinal(a)], offset(a), keys[ordinal(b)], offset(b));
+        return result != 0 ? result : Integer.compare(ordinal(a), ordinal(b));
+    }
+
+    private static int compareSuffix(String a, int offsetA, String b, int offsetB) {
+        int lengthA = a.length() - offsetA;
+        int lengthB = b.length() - offsetB;
+        int length = Math.min(lengthA, lengthB);
+        for (int i = 0; i < length; i++) {
+            char charA = a.charAt(offsetA + i);
+            char charB = b.charAt(offsetB + i);
+            if (charA != charB) {
+                return charA - charB;
+            }
+        }
+        return lengthA - lengthB;
+    }
+
+    /**
+     * Sets the product at the given ordinal, returns the number of its entries.
+     */
+    private static int set(
+            ProductName product, int ordinal, long[] ids, String[] codes, String[] names, String[] keys) {
+        ids[ordinal] = product.id();
+        codes[ordinal] = product.code();
+        names[ordinal] = product.name();
+        String key = normalize(product.name());
+        // most names differ from their key only by case, when they are equal share the instance
+        keys[ordinal] = key.equals(product.name()) ? product.name() : key;
+        return countWordStarts(keys[ordinal]);
+    }
+
+    private static int addWordStarts(String key, int ordinal, long[] entries, int next) {
+        for (int offset = 0; offset < key.length(); offset++) {
+            if (isWordStart(key, offset)) {
+                entries[next++] = ((long) ordinal << 32) | offset;
+            }
+        }
+        return next;
+    }
+
+    private static int countWordStarts(String key) {
+        int count = 0;
+        for (int offset = 0; offset < key.length(); offset++) {
+            if (isWordStart(key, offset)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isWordStart(String key, int offset) {
+        return Character.isLetterOrDigit(key.charAt(offset))
+                && (offset == 0 || !Character.isLetterOrDigit(key.charAt(offset - 1)));
+    }
+
+    private static int ordinal(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int offset(long entry) {
+        return (int) entry;
+    }
+
+    private static long arrayBytes(int elementSize, int length) {
+        return 16 + (long) elementSize * length;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + arrayBytes(1, value.length());
+    }
+}
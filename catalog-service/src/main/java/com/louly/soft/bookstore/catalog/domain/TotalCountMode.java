@@ -0,0 +1,13 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+/**
+ * How the totalElements/totalPages of a product page are computed.
+ * EXACT runs a select count(*) for every page (the default, needed by the webapp pagination),
+ * NONE skips the count and only tells if there is a next page (Slice),
+ * ESTIMATED skips the count and uses the cached estimate maintained by ProductCountCache.
+ */
+public enum TotalCountMode {
+    EXACT,
+    NONE,
+    ESTIMATED
+}
@@ -0,0 +1,13 @@
+package com.louly.soft.bookstore.catalog.domain.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ProductCreatedEvent(
+        String eventId,
+        String code,
+        String name,
+        String description,
+        String imageUrl,
+        BigDecimal price,
+        LocalDateTime createdAt) {}
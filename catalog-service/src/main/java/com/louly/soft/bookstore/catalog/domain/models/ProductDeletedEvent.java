@@ -0,0 +1,5 @@
+package com.louly.soft.bookstore.catalog.domain.models;
+
+import java.time.LocalDateTime;
+
+public record ProductDeletedEvent(String eventId, String code, LocalDateTime createdAt) {}
@@ -0,0 +1,7 @@
+package com.louly.soft.bookstore.catalog.domain.models;
+
+public enum ProductEventType {
+    PRODUCT_CREATED,
+    PRODUCT_PRICE_CHANGED,
+    PRODUCT_DELETED
+}
@@ -0,0 +1,7 @@
+package com.louly.soft.bookstore.catalog.domain.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ProductPriceChangedEvent(
+        String eventId, String code, BigDecimal oldPrice, BigDecimal newPrice, LocalDateTime createdAt) {}
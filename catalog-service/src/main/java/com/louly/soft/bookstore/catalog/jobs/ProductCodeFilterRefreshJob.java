@@ -0,0 +1,27 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductCodeFilterService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Each instance has its own filter, the check is one aggregate query on products.
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalog", name = "code-filter-enabled", havingValue = "true")
+class ProductCodeFilterRefreshJob {
+
+    private final ProductCodeFilterService productCodeFilterService;
+
+    ProductCodeFilterRefreshJob(ProductCodeFilterService productCodeFilterService) {
+        this.productCodeFilterService = productCodeFilterService;
+    }
+
+    @Scheduled(
+            initialDelayString = "${catalog.code-filter-refresh-interval}",
+            fixedDelayString = "${catalog.code-filter-refresh-interval}")
+    public void refreshCodeFilter() {
+        productCodeFilterService.refresh();
+    }
+}
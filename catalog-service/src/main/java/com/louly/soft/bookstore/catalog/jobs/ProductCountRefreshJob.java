@@ -0,0 +1,23 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductCountCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every instance keeps its own cached count, so there is no need for a distributed lock here.
+ */
+@Component
+class ProductCountRefreshJob {
+
+    private final ProductCountCache productCountCache;
+
+    ProductCountRefreshJob(ProductCountCache productCountCache) {
+        this.productCountCache = productCountCache;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.total-count-refresh-interval}")
+    public void refreshProductCount() {
+        productCountCache.refresh();
+    }
+}
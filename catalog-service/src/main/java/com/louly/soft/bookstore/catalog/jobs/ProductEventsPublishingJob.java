@@ -0,0 +1,34 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductEventService;
+import java.time.Duration;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The lock makes sure only one instance publishes the outbox at a time, so the events keep their order.
+ * A run publishes batch after batch (one transaction each) until the outbox is empty, so a backlog such as the events
+ * of an import drains at the pace of the broker, not one batch per run. It stops after MAX_RUN_DURATION,
+ * well within the lockAtMostFor of the lock, and the next run carries on.
+ */
+@Component
+class ProductEventsPublishingJob {
+    private static final Duration MAX_RUN_DURATION = Duration.ofMinutes(1);
+
+    private final ProductEventService productEventService;
+
+    ProductEventsPublishingJob(ProductEventService productEventService) {
+        this.productEventService = productEventService;
+    }
+
+    @Scheduled(cron = "${catalog.publish-product-events-job-cron}")
+    @SchedulerLock(name = "publishProductEvents")
+    public void publishProductEvents() {
+        long deadline = System.nanoTime() + MAX_RUN_DURATION.toNanos();
+        int published;
+        do {
+            published = productEventService.publishProductEvents();
+        } while (published > 0 && System.nanoTime() - deadline < 0);
+    }
+}
@@ -0,0 +1,27 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductFacetService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The facet index lives in the memory of every instance, so each instance refreshes its own copy.
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalog", name = "facet-enabled", havingValue = "true")
+class ProductFacetRefreshJob {
+
+    private final ProductFacetService productFacetService;
+
+    ProductFacetRefreshJob(ProductFacetService productFacetService) {
+        this.productFacetService = productFacetService;
+    }
+
+    @Scheduled(
+            initialDelayString = "${catalog.facet-refresh-interval}",
+            fixedDelayString = "${catalog.facet-refresh-interval}")
+    public void refreshFacets() {
+        productFacetService.refresh();
+    }
+}
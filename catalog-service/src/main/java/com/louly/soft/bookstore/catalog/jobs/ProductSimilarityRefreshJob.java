@@ -0,0 +1,27 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductSimilarityService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The similarity index lives in the memory of every instance, so each instance refreshes its own copy.
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalog", name = "similar-enabled", havingValue = "true")
+class ProductSimilarityRefreshJob {
+
+    private final ProductSimilarityService productSimilarityService;
+
+    ProductSimilarityRefreshJob(ProductSimilarityService productSimilarityService) {
+        this.productSimilarityService = productSimilarityService;
+    }
+
+    @Scheduled(
+            initialDelayString = "${catalog.similar-refresh-interval}",
+            fixedDelayString = "${catalog.similar-refresh-interval}")
+    public void refreshSimilarityIndex() {
+        productSimilarityService.refresh();
+    }
+}
@@ -0,0 +1,25 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductSnapshotService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Each instance has its own snapshot, the check is one aggregate query on products.
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalog", name = "snapshot-enabled", havingValue = "true")
+class ProductSnapshotRefreshJob {
+
+    private final ProductSnapshotService productSnapshotService;
+
+    ProductSnapshotRefreshJob(ProductSnapshotService productSnapshotService) {
+        this.productSnapshotService = productSnapshotService;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.snapshot-refresh-interval}")
+    public void refreshSnapshot() {
+        productSnapshotService.refresh();
+    }
+}
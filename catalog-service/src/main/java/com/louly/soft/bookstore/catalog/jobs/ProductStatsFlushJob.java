@@ -0,0 +1,30 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductStatsService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every instance counts its own views, so each instance flushes its own counters and reloads the shared ranking.
+ */
+@Component
+class ProductStatsFlushJob {
+
+    private final ProductStatsService productStatsService;
+
+    ProductStatsFlushJob(ProductStatsService productStatsService) {
+        this.productStatsService = productStatsService;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.popular-flush-interval}")
+    public void flushViews() {
+        productStatsService.flush();
+    }
+
+    @Scheduled(
+            initialDelayString = "${catalog.popular-reload-interval}",
+            fixedDelayString = "${catalog.popular-reload-interval}")
+    public void reloadPopularProducts() {
+        productStatsService.reload();
+    }
+}
@@ -0,0 +1,30 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.domain.ProductSuggestionService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The suggestion index lives in the memory of every instance, so each instance refreshes its own copy.
+ */
+@Component
+class ProductSuggestionRefreshJob {
+
+    private final ProductSuggestionService productSuggestionService;
+
+    ProductSuggestionRefreshJob(ProductSuggestionService productSuggestionService) {
+        this.productSuggestionService = productSuggestionService;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.suggest-refresh-interval}")
+    public void refreshSuggestions() {
+        productSuggestionService.refresh();
+    }
+
+    @Scheduled(
+            initialDelayString = "${catalog.suggest-reload-interval}",
+            fixedDelayString = "${catalog.suggest-reload-interval}")
+    public void reloadSuggestions() {
+        productSuggestionService.reload();
+    }
+}
@@ -0,0 +1,25 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import com.louly.soft.bookstore.catalog.config.ReplicaRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replicas stay unused until the first check, it runs as soon as the scheduler starts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalog", name = "replica-routing-enabled", havingValue = "true")
+class ReplicaLagCheckJob {
+
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    ReplicaLagCheckJob(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.replica-lag-check-interval}")
+    public void checkReplicaLag() {
+        replicaRoutingDataSource.checkLag();
+    }
+}
@@ -0,0 +1,80 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.louly.soft.bookstore.catalog.domain.ImportFormat;
+import com.louly.soft.bookstore.catalog.domain.ProductImportResult;
+import com.louly.soft.bookstore.catalog.domain.ProductImportService;
+import com.louly.soft.bookstore.catalog.domain.ProductService;
+import com.louly.soft.bookstore.catalog.domain.ProductStock;
+import com.louly.soft.bookstore.catalog.domain.ProductStockService;
+import com.louly.soft.bookstore.catalog.domain.StockUpdateRequest;
+import jakarta.validation.Valid;
+import java.io.InputStream;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Write API of the catalog (bulk import, stock, delete), it has no authentication
+ * so it is only registered when catalog.admin-api-enabled=true.
+ * Spring MVC only, it is not registered with the reactive profile.
+ *
+ * curl -X POST -H "Content-Type: text/csv" --data-binary @products.csv http://localhost:8081/api/products/import
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/products")
+@ConditionalOnProperty(prefix = "catalog", name = "admin-api-enabled", havingValue = "true")
+@RequiredArgsConstructor
+class ProductAdminController {
+    private static final Logger log = LoggerFactory.getLogger(ProductAdminController.class);
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final ProductImportService productImportService;
+    private final ProductService productService;
+    private final ProductStockService productStockService;
+
+    /**
+     * The request body is read as a stream, it is never fully loaded in memory.
+     */
+    @PostMapping(
+            value = "/import",
+            consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    ProductImportResult importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+        ImportFormat format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? ImportFormat.CSV
+                : ImportFormat.NDJSON;
+        log.info("Importing products from {}", format);
+        return productImportService.importProducts(body, format);
+    }
+
+    /**
+     * Sets the stock on hand, 409 when it is below the reserved quantity.
+     */
+    @PutMapping("/{code}/stock")
+    ProductStock setStock(@PathVariable String code, @Valid @RequestBody StockUpdateRequest request) {
+        log.info("Setting the stock of product {} to {}", code, request.quantity());
+        return productStockService.setQuantity(code, request.quantity());
+    }
+
+    @DeleteMapping("/{code}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    void deleteProduct(@PathVariable String code) {
+        log.info("Deleting product: {}", code);
+        productService.deleteProduct(code);
+    }
+}
@@ -1,40 +1,256 @@
 package com.louly.soft.bookstore.catalog.web.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.config.CatalogWarmup;
+import com.louly.soft.bookstore.catalog.domain.FacetedProducts;
+import com.louly.soft.bookstore.catalog.domain.InvalidProductQueryException;
 import com.louly.soft.bookstore.catalog.domain.PagedResult;
+import com.louly.soft.bookstore.catalog.domain.PopularProduct;
 import com.louly.soft.bookstore.catalog.domain.Product;
+import com.louly.soft.bookstore.catalog.domain.ProductChangeService;
+import com.louly.soft.bookstore.catalog.domain.ProductChanges;
+import com.louly.soft.bookstore.catalog.domain.ProductFacetService;
+import com.louly.soft.bookstore.catalog.domain.ProductField;
+import com.louly.soft.bookstore.catalog.domain.ProductLookupRequest;
+import com.louly.soft.bookstore.catalog.domain.ProductLookupResult;
 import com.louly.soft.bookstore.catalog.domain.ProductNotFoundException;
+import com.louly.soft.bookstore.catalog.domain.ProductQuery;
 import com.louly.soft.bookstore.catalog.domain.ProductService;
+import com.louly.soft.bookstore.catalog.domain.ProductSimilarityService;
+import com.louly.soft.bookstore.catalog.domain.ProductSort;
+import com.louly.soft.bookstore.catalog.domain.ProductStatsService;
+import com.louly.soft.bookstore.catalog.domain.ProductSuggestion;
+import com.louly.soft.bookstore.catalog.domain.ProductSuggestionService;
+import com.louly.soft.bookstore.catalog.domain.SimilarProduct;
+import com.louly.soft.bookstore.catalog.domain.TotalCountMode;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+/**
+ * Spring MVC stack, replaced by ReactiveProductController with the reactive profile.
+ */
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @RequestMapping("/api/products")
 class ProductController {
 
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
     private final ProductService productService;
+    private final ProductSuggestionService productSuggestionService;
+    private final ApplicationProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ProductResponseCache responseCache;
+    private final ProductStatsService productStatsService;
+    private final ProductFacetService productFacetService;
+    private final ProductSimilarityService productSimilarityService;
+    private final ProductChangeService productChangeService;
 
+    /**
+     * Classic page number pagination with ?page=N (used by the bookstore-webapp),
+     * or keyset pagination with ?cursor= (empty for the first page, then nextCursor/prevCursor)
+     * which stays fast on deep pages.
+     * With page numbers, ?count=EXACT|NONE|ESTIMATED overrides how the totals are computed (catalog.total-count),
+     * ?sort=NAME|PRICE_ASC|PRICE_DESC|NEWEST changes the order and ?minPrice=&maxPrice=&namePrefix= filter the products
+     * (see ProductQuery for the supported combinations).
+     * ?fields=code,name,price returns only those fields of the products, read from those columns only.
+     * The JSON of the unfiltered pages (with or without fieldset) is served from the ProductResponseCache when it is
+     * enabled.
+     */
     @GetMapping
-    PagedResult<Product> getProducts(@RequestParam(name = "page", defaultValue = "1") int pageNo) {
-        log.info("Fetching products for page: {}", pageNo);
+    ResponseEntity<?> getProducts(
+            @RequestParam(name = "page", defaultValue = "1") int pageNo,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "count", required = false) TotalCountMode countMode,
+            @RequestParam(name = "sort", required = false) ProductSort sort,
+            @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         /**
          * Timeout testing
          * This is for demonstration purposes only.
          * sleep();
          */
-        return productService.getProducts(pageNo);
+        ProductQuery query = new ProductQuery(minPrice, maxPrice, namePrefix, sort);
+        TotalCountMode totalCount = countMode == null ? properties.totalCount() : countMode;
+        Set<ProductField> productFields = ProductField.parse(fields);
+        if (cursor == null && !query.hasFilters() && responseCache.isCacheable(accept)) {
+            log.debug("Fetching products for page: {}, query: {}, fields: {} (response cache)", pageNo, query, fields);
+            return cached(
+                    responseCache.getPage(
+                            pageNo,
+                            totalCount,
+                            query.sort(),
+                            productFields,
+                            () -> productService.getProducts(pageNo, totalCount, query, productFields)),
+                    acceptEncoding);
+        }
+        PagedResult<Product> products;
+        if (cursor != null) {
+            if (!query.equals(ProductQuery.DEFAULT)) {
+                throw InvalidProductQueryException.forCursorWithQuery();
+            }
+            log.info("Fetching products for cursor: {}", cursor);
+            // the cursor needs the name and id of the rows, the fieldset only applies to the serialization
+            products = productService.getProducts(cursor);
+        } else {
+            log.info("Fetching products for page: {}, query: {}, fields: {}", pageNo, query, fields);
+            products = productService.getProducts(pageNo, totalCount, query, productFields);
+        }
+        /**
+         * When the ETag matches the If-None-Match request header,
+         * Spring MVC answers 304 Not Modified without serializing the body.
+         */
+        return ResponseEntity.ok()
+                .eTag(ProductETags.forPage(products, productFields, ProductETags.encoding(accept)))
+                .cacheControl(cacheControl())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(withFields(products, productFields));
+    }
+
+    /**
+     * Full text search on name and description, e.g. /api/products/search?q=hunger games
+     */
+    @GetMapping("/search")
+    PagedResult<Product> searchProducts(
+            @RequestParam(name = "q") String query, @RequestParam(name = "page", defaultValue = "1") int pageNo) {
+        log.info("Searching products for query: {}, page: {}", query, pageNo);
+        return productService.searchProducts(query, pageNo);
+    }
+
+    /**
+     * Search-as-you-type suggestions on the product names, e.g. /api/products/suggest?prefix=hun
+     * Answered from memory, it never hits the database.
+     */
+    @GetMapping("/suggest")
+    List<ProductSuggestion> suggestProducts(
+            @RequestParam(name = "prefix") String prefix,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return productSuggestionService.suggest(prefix, limit);
+    }
+
+    /**
+     * Faceted browsing, e.g. /api/products/browse?category=Fantasy&category=Classics&price=10-25&page=1
+     * Returns the page of matching products (name order) with the count of every category, author and price bucket.
+     * Repeated values of a facet match any of them, different facets must all match.
+     */
+    @GetMapping("/browse")
+    FacetedProducts browseProducts(
+            @RequestParam(name = "category", required = false) List<String> categories,
+            @RequestParam(name = "author", required = false) List<String> authors,
+            @RequestParam(name = "price", required = false) List<String> prices,
+            @RequestParam(name = "page", defaultValue = "1") int pageNo) {
+        return productFacetService.browse(categories, authors, prices, pageNo);
+    }
+
+    /**
+     * The most viewed products (views of /api/products/{code}), e.g. /api/products/popular?limit=5
+     * Answered from memory, the counts lag behind by up to catalog.popular-flush-interval.
+     */
+    @GetMapping("/popular")
+    List<PopularProduct> getPopularProducts(@RequestParam(name = "limit", required = false) Integer limit) {
+        return productStatsService.getPopularProducts(limit);
+    }
+
+    /**
+     * Delta sync, e.g. /api/products/changes?since=1234
+     * Returns the products created or updated and the codes deleted after that change sequence (0 for everything),
+     * in change order. Call again with nextSince, right away while hasMore, later otherwise.
+     */
+    @GetMapping("/changes")
+    ProductChanges getProductChanges(@RequestParam(name = "since", defaultValue = "0") long since) {
+        log.info("Fetching product changes since: {}", since);
+        return productChangeService.getChanges(since);
+    }
+
+    /**
+     * Streams the whole catalog as NDJSON (one product JSON per line) for search indexers, caches and analytics.
+     * The body is written asynchronously while the rows are read from the database,
+     * so neither the service nor the client needs to hold the whole catalog in memory.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportProducts() {
+        log.info("Exporting all products");
+        // no flush after each product, the generator buffers and flushes the output by chunks
+        ObjectWriter writer = objectMapper
+                .writerFor(Product.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+                productService.exportProducts(product -> {
+                    try {
+                        writer.writeValue(generator, product);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Bulk lookup with ?codes=P100,P101,... so callers need one round-trip instead of one per code.
+     * Products are keyed by code, and unknown codes are listed in missingCodes.
+     */
+    @GetMapping(params = "codes")
+    ProductLookupResult getProductsByCodes(@RequestParam(name = "codes") List<String> codes) {
+        log.info("Fetching products by codes: {}", codes);
+        return productService.getProductsByCodes(codes);
+    }
+
+    /**
+     * Same as the GET bulk lookup, for sets of codes too large for a query string.
+     */
+    @PostMapping("/lookup")
+    ProductLookupResult lookupProducts(@Valid @RequestBody ProductLookupRequest request) {
+        log.info("Looking up {} product codes", request.codes().size());
+        return productService.getProductsByCodes(request.codes());
     }
 
+    /**
+     * ?fields=code,name,price returns only those fields, read from those columns only.
+     * The startup warm-up requests (CatalogWarmup.REQUEST_HEADER) are not counted as views.
+     */
     @GetMapping("/{code}")
-    ResponseEntity<Product> getProductByCode(@PathVariable String code) {
+    ResponseEntity<?> getProductByCode(
+            @PathVariable String code,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(name = CatalogWarmup.REQUEST_HEADER, required = false) String warmup) {
         log.info("Fetching product by code: {}", code);
         /**
          * Timeout testing
@@ -42,10 +258,90 @@ class ProductController {
          * sleep();
          */
         // sleep();
-        return productService
-                .getProductByCode(code)
-                .map(ResponseEntity::ok)
+        Set<ProductField> productFields = ProductField.parse(fields);
+        if (responseCache.isCacheable(accept)) {
+            ProductResponseCache.Entry entry = responseCache.getProduct(code, productFields, () -> productService
+                    .getProductByCode(code, productFields)
+                    .orElse(null));
+            if (entry == null) {
+                throw ProductNotFoundException.forCode(code);
+            }
+            if (warmup == null) {
+                productStatsService.recordView(code);
+            }
+            return cached(entry, acceptEncoding);
+        }
+        Product product = productService
+                .getProductByCode(code, productFields)
                 .orElseThrow(() -> ProductNotFoundException.forCode(code));
+        if (warmup == null) {
+            productStatsService.recordView(code);
+        }
+        return ResponseEntity.ok()
+                .eTag(ProductETags.forProduct(product, productFields, ProductETags.encoding(accept)))
+                .cacheControl(cacheControl())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(withFields(product, productFields));
+    }
+
+    /**
+     * Products with the closest name and description (cosine of TF-IDF vectors), e.g. /api/products/P100/similar?limit=5
+     * Answered from memory, it never hits the database. Always empty unless catalog.similar-enabled.
+     */
+    @GetMapping("/{code}/similar")
+    List<SimilarProduct> getSimilarProducts(
+            @PathVariable String code, @RequestParam(name = "limit", required = false) Integer limit) {
+        return productSimilarityService.findSimilar(code, limit);
+    }
+
+    /**
+     * The cached bytes are written as they are by the ByteArrayHttpMessageConverter,
+     * the gzipped copy when the client accepts it (the servlet container leaves an encoded response alone).
+     */
+    private ResponseEntity<byte[]> cached(ProductResponseCache.Entry entry, String acceptEncoding) {
+        boolean gzipped = entry.hasGzip() && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(entry.eTag(gzipped))
+                .cacheControl(cacheControl())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzipped) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(entry.body(gzipped));
+    }
+
+    private static Object withFields(Object body, Set<ProductField> fields) {
+        if (fields == null) {
+            return body;
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(ProductFieldsFilter.of(fields));
+        return value;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * With a max-age of 0 caches may store the response but must revalidate it (cheap with the ETag),
+     * otherwise the response can be reused by the gateway, the webapp and browsers for max-age.
+     */
+    private CacheControl cacheControl() {
+        Duration maxAge = properties.httpCacheMaxAge();
+        return maxAge.isZero()
+                ? CacheControl.noCache()
+                : CacheControl.maxAge(maxAge).cachePublic();
     }
 
     /**
@@ -0,0 +1,108 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.louly.soft.bookstore.catalog.domain.PagedResult;
+import com.louly.soft.bookstore.catalog.domain.Product;
+import com.louly.soft.bookstore.catalog.domain.ProductField;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+/**
+ * Strong ETags for the catalog responses.
+ * A product ETag is its code and version, the version changes on every update of the row.
+ * A page ETag is a hash of the page metadata and the code/version of every product on the page,
+ * so it changes when any product on the page changes or when products are added/removed.
+ * A sparse fieldset is part of both, the responses with other fields of the same products are other representations.
+ * So is the Smile or CBOR encoding: with Vary: Accept, a cache revalidating the stored variants must not get a 304
+ * for a variant of another encoding.
+ */
+class ProductETags {
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    // in the order of the message converters and codecs, JSON first
+    private static final List<MediaType> ENCODINGS =
+            List.of(MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR);
+
+    /**
+     * The encoding the message converters pick for this Accept header, null for JSON (the default for *&#47;*),
+     * otherwise "smile" or "cbor": the first encoding compatible with the acceptable type of highest quality,
+     * the earlier one in the header between types of the same quality.
+     */
+    static String encoding(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return null;
+        }
+        MediaType selected = null;
+        double selectedQuality = 0;
+        for (MediaType acceptable : MediaType.parseMediaTypes(accept)) {
+            if (acceptable.getQualityValue() <= selectedQuality) {
+                continue;
+            }
+            for (MediaType encoding : ENCODINGS) {
+                if (acceptable.isCompatibleWith(encoding)) {
+                    selected = encoding;
+                    selectedQuality = acceptable.getQualityValue();
+                    break;
+                }
+            }
+        }
+        if (selected == null || selected == MediaType.APPLICATION_JSON) {
+            return null;
+        }
+        return selected == SMILE ? "smile" : "cbor";
+    }
+
+    /**
+     * e.g. "P100-3" for every field in JSON, "P100-3-code.name.price" with a fieldset, "P100-3-smile" in Smile.
+     *
+     * @param fields sparse fieldset, null for every field
+     * @param encoding see encoding(String), null for JSON
+     */
+    static String forProduct(Product product, Set<ProductField> fields, String encoding) {
+        String eTag = product.code() + "-" + product.version();
+        if (fields != null) {
+            eTag += "-" + ProductField.format(fields).replace(',', '.');
+        }
+        if (encoding != null) {
+            eTag += "-" + encoding;
+        }
+        return "\"" + eTag + "\"";
+    }
+
+    /**
+     * @param fields sparse fieldset, null for every field
+     * @param encoding see encoding(String), null for JSON
+     */
+    static String forPage(PagedResult<Product> page, Set<ProductField> fields, String encoding) {
+        MessageDigest digest = sha256();
+        if (fields != null) {
+            update(digest, ProductField.format(fields));
+        }
+        if (encoding != null) {
+            update(digest, encoding);
+        }
+        update(digest, page.totalElements() + "/" + page.pageNumber() + "/" + page.totalPages());
+        update(digest, page.nextCursor() + "/" + page.prevCursor());
+        for (Product product : page.data()) {
+            update(digest, product.code() + ":" + product.version());
+        }
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.louly.soft.bookstore.catalog.domain.Product;
+import com.louly.soft.bookstore.catalog.domain.ProductField;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Jackson filter of a sparse fieldset: the fields left out are skipped by the serialization, whatever their value
+ * (the in-memory snapshot returns whole products).
+ */
+class ProductFieldsFilter {
+
+    static FilterProvider of(Set<ProductField> fields) {
+        return new SimpleFilterProvider()
+                .addFilter(
+                        Product.FIELDS_FILTER,
+                        SimpleBeanPropertyFilter.filterOutAllExcept(
+                                fields.stream().map(ProductField::fieldName).collect(Collectors.toSet())));
+    }
+}
@@ -0,0 +1,186 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.domain.PagedResult;
+import com.louly.soft.bookstore.catalog.domain.Product;
+import com.louly.soft.bookstore.catalog.domain.ProductField;
+import com.louly.soft.bookstore.catalog.domain.ProductSort;
+import com.louly.soft.bookstore.catalog.domain.ProductsChangedEvent;
+import com.louly.soft.bookstore.catalog.domain.TotalCountMode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+/**
+ * Ready-to-write JSON bytes of the hot catalog responses: the default product pages (by page, count mode, sort and
+ * sparse fieldset) and the products by code (and fieldset), so a hit skips the query, the mapping and the Jackson serialization.
+ * Every entry keeps a gzipped copy as well (catalog.response-cache-gzip) for the clients sending Accept-Encoding: gzip.
+ * The cache is bounded by the size of the bytes (catalog.response-cache-max-size, least recently used evicted first)
+ * and by catalog.response-cache-ttl, since a change made by another instance is only seen once the entry expires.
+ * A change made by this instance clears it right away.
+ * The unknown codes are cached as well, so a client retrying one gets its 404 without a query each time
+ * (a product created by another instance is answered 404 here until the entry expires, like any other change).
+ * Off by default (catalog.response-cache-enabled): there is no invalidation across the instances.
+ */
+@Component
+class ProductResponseCache {
+
+    /**
+     * @param eTag strong ETag of the identity encoding, the gzip variant gets its own (see eTag(boolean))
+     */
+    record Entry(byte[] json, byte[] gzip, String eTag) {
+
+        byte[] body(boolean gzipped) {
+            return gzipped ? gzip : json;
+        }
+
+        String eTag(boolean gzipped) {
+            return gzipped ? eTag.substring(0, eTag.length() - 1) + "-gzip\"" : eTag;
+        }
+
+        boolean hasGzip() {
+            return gzip != null;
+        }
+    }
+
+    // on top of the bytes, roughly the key, the entry and the ETag
+    private static final int ENTRY_OVERHEAD = 200;
+    // cached for an unknown product code
+    private static final Entry NOT_FOUND = new Entry(new byte[0], null, null);
+
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties properties;
+    private final Cache<String, Entry> cache;
+
+    ProductResponseCache(ObjectMapper objectMapper, ApplicationProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.responseCacheMaxSize().toBytes())
+                .<String, Entry>weigher((key, entry) ->
+                        ENTRY_OVERHEAD + entry.json().length + (entry.hasGzip() ? entry.gzip().length : 0))
+                .expireAfterWrite(properties.responseCacheTtl())
+                .recordStats()
+                .build();
+        if (properties.responseCacheEnabled()) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalog.response");
+            Gauge.builder("catalog.response.cache.memory", cache, ProductResponseCache::weightedSize)
+                    .description("Size of the cached response bytes")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Only the JSON representation is cached: no Accept header, or one accepting JSON without asking
+     * for one of the binary encodings (which go through the message converters as usual).
+     */
+    boolean isCacheable(String accept) {
+        if (!properties.responseCacheEnabled()) {
+            return false;
+        }
+        if (!StringUtils.hasText(accept)) {
+            return true;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        boolean json = false;
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getSubtype().contains("smile")
+                    || mediaType.getSubtype().contains("cbor")) {
+                return false;
+            }
+            json |= mediaType.isCompatibleWith(MediaType.APPLICATION_JSON);
+        }
+        return json;
+    }
+
+    /**
+     * The page numbers up to 1 are all the first page (as for ProductService) and share its entry.
+     * The empty pages past the last one are returned but not cached, any page number would get an entry otherwise.
+     * @param fields sparse fieldset, null for every field
+     */
+    Entry getPage(
+            int pageNo,
+            TotalCountMode countMode,
+            ProductSort sort,
+            Set<ProductField> fields,
+            Supplier<PagedResult<Product>> loader) {
+        String key = "page:" + Math.max(pageNo, 1) + ":" + countMode + ":" + sort + ":" + ProductField.format(fields);
+        Entry[] pastLastPage = new Entry[1];
+        Entry entry = cache.get(key, k -> {
+            PagedResult<Product> page = loader.get();
+            Entry loaded = toEntry(page, fields, ProductETags.forPage(page, fields, null));
+            if (page.data().isEmpty() && !page.isFirst()) {
+                pastLastPage[0] = loaded;
+                return null;
+            }
+            return loaded;
+        });
+        return entry != null ? entry : pastLastPage[0];
+    }
+
+    /**
+     * Returns null when the loader finds no product, which is cached too.
+     */
+    Entry getProduct(String code, Set<ProductField> fields, Supplier<Product> loader) {
+        Entry entry = cache.get("product:" + code + ":" + ProductField.format(fields), key -> {
+            Product product = loader.get();
+            return product == null
+                    ? NOT_FOUND
+                    : toEntry(product, fields, ProductETags.forProduct(product, fields, null));
+        });
+        return entry == NOT_FOUND ? null : entry;
+    }
+
+    /**
+     * Runs once the change is committed (or right away when published outside of a transaction).
+     */
+    @TransactionalEventListener(classes = ProductsChangedEvent.class, fallbackExecution = true)
+    void onProductsChanged() {
+        cache.invalidateAll();
+    }
+
+    private Entry toEntry(Object value, Set<ProductField> fields, String eTag) {
+        try {
+            ObjectWriter writer =
+                    fields == null ? objectMapper.writer() : objectMapper.writer(ProductFieldsFilter.of(fields));
+            byte[] json = writer.writeValueAsBytes(value);
+            return new Entry(json, properties.responseCacheGzip() ? gzip(json) : null, eTag);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static double weightedSize(Cache<String, Entry> cache) {
+        return cache.policy()
+                .eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+}
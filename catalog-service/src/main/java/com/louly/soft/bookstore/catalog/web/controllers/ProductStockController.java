@@ -0,0 +1,28 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.louly.soft.bookstore.catalog.domain.ProductStock;
+import com.louly.soft.bookstore.catalog.domain.ProductStockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Stock of a product. It is reserved and released by the other services with the internal API
+ * (StockReservationController), and set with the admin API (PUT /api/products/{code}/stock).
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/products/{code}/stock")
+@RequiredArgsConstructor
+class ProductStockController {
+
+    private final ProductStockService productStockService;
+
+    @GetMapping
+    ProductStock getStock(@PathVariable String code) {
+        return productStockService.getStock(code);
+    }
+}
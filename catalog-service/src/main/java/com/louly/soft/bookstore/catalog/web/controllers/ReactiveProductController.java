@@ -0,0 +1,116 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.config.CatalogWarmup;
+import com.louly.soft.bookstore.catalog.domain.InvalidProductQueryException;
+import com.louly.soft.bookstore.catalog.domain.PagedResult;
+import com.louly.soft.bookstore.catalog.domain.Product;
+import com.louly.soft.bookstore.catalog.domain.ProductNotFoundException;
+import com.louly.soft.bookstore.catalog.domain.ProductSort;
+import com.louly.soft.bookstore.catalog.domain.ProductStatsService;
+import com.louly.soft.bookstore.catalog.domain.ReactiveProductService;
+import com.louly.soft.bookstore.catalog.domain.TotalCountMode;
+import java.time.Duration;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * The /api/products and /api/products/{code} contracts of ProductController on WebFlux and R2DBC,
+ * served instead of the Spring MVC controllers with the reactive profile.
+ * Pages support ?page=, ?count= and ?sort=. The bulk lookup (?codes=), the cursors, the filters, the sparse fieldsets
+ * and the other endpoints are only served by the default (Spring MVC) stack: their query parameters are refused
+ * with a 400 rather than ignored, which would answer the wrong products.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/products")
+class ReactiveProductController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProductController.class);
+    private static final List<String> MVC_ONLY_PAGE_PARAMETERS =
+            List.of("codes", "cursor", "minPrice", "maxPrice", "namePrefix", "fields");
+    private static final List<String> MVC_ONLY_PRODUCT_PARAMETERS = List.of("fields");
+
+    private final ReactiveProductService productService;
+    private final ProductStatsService productStatsService;
+    private final ApplicationProperties properties;
+
+    /**
+     * WebFlux answers 304 Not Modified when the ETag matches the If-None-Match request header.
+     */
+    @GetMapping
+    Mono<ResponseEntity<PagedResult<Product>>> getProducts(
+            @RequestParam(name = "page", defaultValue = "1") int pageNo,
+            @RequestParam(name = "count", required = false) TotalCountMode countMode,
+            @RequestParam(name = "sort", required = false) ProductSort sort,
+            @RequestParam MultiValueMap<String, String> parameters,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        rejectUnsupported(parameters, MVC_ONLY_PAGE_PARAMETERS);
+        log.debug("Fetching products for page: {}, sort: {}", pageNo, sort);
+        TotalCountMode totalCount = countMode == null ? properties.totalCount() : countMode;
+        return productService.getProducts(pageNo, totalCount, sort).map(products -> ResponseEntity.ok()
+                .eTag(ProductETags.forPage(products, null, ProductETags.encoding(accept)))
+                .cacheControl(cacheControl())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(products));
+    }
+
+    /**
+     * The startup warm-up requests (CatalogWarmup.REQUEST_HEADER) are not counted as views.
+     */
+    @GetMapping("/{code}")
+    Mono<ResponseEntity<Product>> getProductByCode(
+            @PathVariable String code,
+            @RequestParam MultiValueMap<String, String> parameters,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = CatalogWarmup.REQUEST_HEADER, required = false) String warmup) {
+        rejectUnsupported(parameters, MVC_ONLY_PRODUCT_PARAMETERS);
+        log.debug("Fetching product by code: {}", code);
+        return productService
+                .getProductByCode(code)
+                .switchIfEmpty(Mono.error(() -> ProductNotFoundException.forCode(code)))
+                .map(product -> {
+                    if (warmup == null) {
+                        productStatsService.recordView(code);
+                    }
+                    return ResponseEntity.ok()
+                            .eTag(ProductETags.forProduct(product, null, ProductETags.encoding(accept)))
+                            .cacheControl(cacheControl())
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(product);
+                });
+    }
+
+    private static void rejectUnsupported(MultiValueMap<String, String> parameters, List<String> unsupported) {
+        for (String parameter : unsupported) {
+            if (parameters.containsKey(parameter)) {
+                throw InvalidProductQueryException.forUnsupportedParameter(parameter);
+            }
+        }
+    }
+
+    /**
+     * Same caching policy as ProductController.
+     */
+    private CacheControl cacheControl() {
+        Duration maxAge = properties.httpCacheMaxAge();
+        return maxAge.isZero()
+                ? CacheControl.noCache()
+                : CacheControl.maxAge(maxAge).cachePublic();
+    }
+}
@@ -0,0 +1,64 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import com.louly.soft.bookstore.catalog.domain.ProductStockService;
+import com.louly.soft.bookstore.catalog.domain.StockReservation;
+import com.louly.soft.bookstore.catalog.domain.StockReservationRequest;
+import jakarta.validation.Valid;
+import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Stock reservations of the other services, e.g. when an order is placed and when it is cancelled.
+ * They have no authentication, so they are only registered when catalog.stock-reservations-enabled=true,
+ * and they are under /internal, which the api-gateway does not route.
+ *
+ * curl -X POST -H "Content-Type: application/json" -H "Idempotency-Key: order-42" \
+ *   -d '{"code":"P100","quantity":2}' http://localhost:8081/internal/stock/reservations
+ * curl -X DELETE http://localhost:8081/internal/stock/reservations/{id}
+ *
+ * A reservation answers 201 with its id once it is committed, 409 when the stock is short. Sent again with the same
+ * Idempotency-Key it answers the reservation already made. A release answers 204, also when the reservation was
+ * already released, and 404 for an unknown id.
+ * The requests wait for their batch asynchronously, they do not hold a request thread meanwhile.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/internal/stock/reservations")
+@ConditionalOnProperty(prefix = "catalog", name = "stock-reservations-enabled", havingValue = "true")
+@RequiredArgsConstructor
+class StockReservationController {
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final ProductStockService productStockService;
+
+    @PostMapping
+    CompletableFuture<ResponseEntity<StockReservation>> reserve(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody StockReservationRequest request) {
+        return productStockService
+                .reserve(request.code(), request.quantity(), idempotencyKey)
+                .thenApply(reservation -> ResponseEntity.created(
+                                URI.create("/internal/stock/reservations/" + reservation.id()))
+                        .body(reservation));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    CompletableFuture<Void> release(@PathVariable UUID id) {
+        return productStockService.release(id);
+    }
+}
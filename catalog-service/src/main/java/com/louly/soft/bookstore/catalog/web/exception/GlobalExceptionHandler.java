@@ -1,40 +1,47 @@
 package com.louly.soft.bookstore.catalog.web.exception;
 
+import com.louly.soft.bookstore.catalog.domain.InsufficientStockException;
+import com.louly.soft.bookstore.catalog.domain.InvalidProductImportException;
+import com.louly.soft.bookstore.catalog.domain.InvalidProductQueryException;
 import com.louly.soft.bookstore.catalog.domain.ProductNotFoundException;
-import java.net.URI;
-import java.time.Instant;
-import org.springframework.http.HttpStatus;
+import com.louly.soft.bookstore.catalog.domain.StockReservationNotFoundException;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ProblemDetail;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 @RestControllerAdvice
+@Profile("!reactive")
 class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
-    private static final URI NOT_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/not-found");
-    private static final URI ISE_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/server-error");
-    private static final String SERVICE_NAME = "catalog-service";
 
     @ExceptionHandler(Exception.class)
     ProblemDetail handleUnhandledException(Exception e) {
-        ProblemDetail problemDetail =
-                ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
-        problemDetail.setTitle("Internal Server Error");
-        problemDetail.setType(ISE_FOUND_TYPE);
-        problemDetail.setProperty("service", SERVICE_NAME);
-        // problemDetail.setProperty("error_category", "Generic");
-        problemDetail.setProperty("timestamp", Instant.now());
-        return problemDetail;
+        return ProblemDetails.serverError(e);
     }
 
     @ExceptionHandler(ProductNotFoundException.class)
     ProblemDetail handleProductNotFoundException(ProductNotFoundException e) {
-        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
-        problemDetail.setTitle("Product Not Found");
-        problemDetail.setType(NOT_FOUND_TYPE);
-        problemDetail.setProperty("service", SERVICE_NAME);
-        // problemDetail.setProperty("error_category", "Generic");
-        problemDetail.setProperty("timestamp", Instant.now());
-        return problemDetail;
+        return ProblemDetails.notFound("Product Not Found", e);
+    }
+
+    @ExceptionHandler(InvalidProductQueryException.class)
+    ProblemDetail handleInvalidProductQueryException(InvalidProductQueryException e) {
+        return ProblemDetails.badRequest("Invalid Product Query", e);
+    }
+
+    @ExceptionHandler(InvalidProductImportException.class)
+    ProblemDetail handleInvalidProductImportException(InvalidProductImportException e) {
+        return ProblemDetails.badRequest("Invalid Product Import", e);
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    ProblemDetail handleInsufficientStockException(InsufficientStockException e) {
+        return ProblemDetails.conflict("Insufficient Stock", e);
+    }
+
+    @ExceptionHandler(StockReservationNotFoundException.class)
+    ProblemDetail handleStockReservationNotFoundException(StockReservationNotFoundException e) {
+        return ProblemDetails.notFound("Stock Reservation Not Found", e);
     }
 }
@@ -0,0 +1,44 @@
+package com.louly.soft.bookstore.catalog.web.exception;
+
+import java.net.URI;
+import java.time.Instant;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+/**
+ * Problem details of the catalog errors, shared by the Spring MVC and the WebFlux (reactive profile) handlers.
+ */
+final class ProblemDetails {
+    private static final URI NOT_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/not-found");
+    private static final URI ISE_FOUND_TYPE = URI.create("https://api.bookstore.com/errors/server-error");
+    private static final URI BAD_REQUEST_TYPE = URI.create("https://api.bookstore.com/errors/bad-request");
+    private static final URI CONFLICT_TYPE = URI.create("https://api.bookstore.com/errors/conflict");
+    private static final String SERVICE_NAME = "catalog-service";
+
+    private ProblemDetails() {}
+
+    static ProblemDetail serverError(Exception e) {
+        return problemDetail(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", ISE_FOUND_TYPE, e);
+    }
+
+    static ProblemDetail notFound(String title, Exception e) {
+        return problemDetail(HttpStatus.NOT_FOUND, title, NOT_FOUND_TYPE, e);
+    }
+
+    static ProblemDetail badRequest(String title, Exception e) {
+        return problemDetail(HttpStatus.BAD_REQUEST, title, BAD_REQUEST_TYPE, e);
+    }
+
+    static ProblemDetail conflict(String title, Exception e) {
+        return problemDetail(HttpStatus.CONFLICT, title, CONFLICT_TYPE, e);
+    }
+
+    private static ProblemDetail problemDetail(HttpStatus status, String title, URI type, Exception e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, e.getMessage());
+        problemDetail.setTitle(title);
+        problemDetail.setType(type);
+        problemDetail.setProperty("service", SERVICE_NAME);
+        problemDetail.setProperty("timestamp", Instant.now());
+        return problemDetail;
+    }
+}
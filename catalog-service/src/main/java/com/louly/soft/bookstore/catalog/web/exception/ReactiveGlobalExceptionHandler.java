@@ -0,0 +1,32 @@
+package com.louly.soft.bookstore.catalog.web.exception;
+
+import com.louly.soft.bookstore.catalog.domain.InvalidProductQueryException;
+import com.louly.soft.bookstore.catalog.domain.ProductNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * Same problem details as GlobalExceptionHandler on the WebFlux stack of the reactive profile.
+ */
+@RestControllerAdvice
+@Profile("reactive")
+class ReactiveGlobalExceptionHandler extends ResponseEntityExceptionHandler {
+
+    @ExceptionHandler(Exception.class)
+    ProblemDetail handleUnhandledException(Exception e) {
+        return ProblemDetails.serverError(e);
+    }
+
+    @ExceptionHandler(ProductNotFoundException.class)
+    ProblemDetail handleProductNotFoundException(ProductNotFoundException e) {
+        return ProblemDetails.notFound("Product Not Found", e);
+    }
+
+    @ExceptionHandler(InvalidProductQueryException.class)
+    ProblemDetail handleInvalidProductQueryException(InvalidProductQueryException e) {
+        return ProblemDetails.badRequest("Invalid Product Query", e);
+    }
+}
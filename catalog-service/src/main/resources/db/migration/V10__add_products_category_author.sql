@@ -0,0 +1,19 @@
+-- facet attributes of the browse endpoint, the price buckets are computed from the price
+alter table products add column category text;
+alter table products add column author text;
+
+update products set category = 'Young Adult', author = 'Suzanne Collins' where code = 'P100';
+update products set category = 'Classics', author = 'Harper Lee' where code = 'P101';
+update products set category = 'Fantasy', author = 'C. S. Lewis' where code = 'P102';
+update products set category = 'Classics', author = 'Margaret Mitchell' where code = 'P103';
+update products set category = 'Young Adult', author = 'John Green' where code = 'P104';
+update products set category = 'Children', author = 'Shel Silverstein' where code = 'P105';
+update products set category = 'Thriller', author = 'Dan Brown' where code = 'P106';
+update products set category = 'Fiction', author = 'Paulo Coelho' where code = 'P107';
+update products set category = 'Children', author = 'E. B. White' where code = 'P108';
+update products set category = 'Children', author = 'Antoine de Saint-Exupéry' where code = 'P109';
+update products set category = 'Fiction', author = 'Khaled Hosseini' where code = 'P110';
+update products set category = 'Fantasy', author = 'George R. R. Martin' where code = 'P111';
+update products set category = 'Young Adult', author = 'Markus Zusak' where code = 'P112';
+update products set category = 'Classics', author = 'Ken Kesey' where code = 'P113';
+update products set category = 'Romance', author = 'E. L. James' where code = 'P114';
@@ -0,0 +1,61 @@
+-- change feed of GET /api/products/changes?since=<change_seq>
+-- every insert and update of a product takes the next value of product_change_seq,
+-- a deleted product leaves a tombstone which takes one as well
+create sequence product_change_seq;
+
+alter table products add column change_seq bigint;
+update products set change_seq = nextval('product_change_seq');
+alter table products alter column change_seq set not null;
+create index products_change_seq_idx on products (change_seq);
+
+create table product_tombstones
+(
+    code       text      not null,
+    change_seq bigint    not null,
+    deleted_at timestamp not null default now(),
+    primary key (code)
+);
+
+create index product_tombstones_change_seq_idx on product_tombstones (change_seq);
+
+-- The writers of products take this lock until they commit, before their nextval,
+-- so the sequence values become visible in increasing order and a reader never skips a value
+-- committed after its read. Catalog writes are rare (bulk imports, deletes), it costs them little.
+create function products_next_change_seq() returns bigint language plpgsql as
+$$
+begin
+    perform pg_advisory_xact_lock(hashtext('product_change_seq'));
+    return nextval('product_change_seq');
+end;
+$$;
+
+create function products_set_change_seq() returns trigger language plpgsql as
+$$
+begin
+    new.change_seq := products_next_change_seq();
+    if tg_op = 'INSERT' then
+        delete from product_tombstones where code = new.code;
+    end if;
+    return new;
+end;
+$$;
+
+create trigger products_set_change_seq
+    before insert or update on products
+    for each row execute function products_set_change_seq();
+
+create function products_add_tombstone() returns trigger language plpgsql as
+$$
+begin
+    insert into product_tombstones (code, change_seq)
+    values (old.code, products_next_change_seq())
+    on conflict (code) do update
+    set change_seq = excluded.change_seq,
+        deleted_at = now();
+    return old;
+end;
+$$;
+
+create trigger products_add_tombstone
+    after delete on products
+    for each row execute function products_add_tombstone();
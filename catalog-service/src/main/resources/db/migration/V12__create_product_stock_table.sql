@@ -0,0 +1,25 @@
+-- stock of the products, reserved in batches by ProductStockService
+-- kept out of products: a reservation must not touch the product rows (change_seq, version, caches)
+create table product_stock
+(
+    code       text      not null,
+    quantity   bigint    not null default 0,
+    reserved   bigint    not null default 0,
+    updated_at timestamp not null default now(),
+    primary key (code),
+    constraint product_stock_quantity_check check (quantity >= 0),
+    constraint product_stock_reserved_check check (reserved >= 0 and reserved <= quantity)
+);
+
+-- no foreign key, like product_stats, a deleted product takes its stock with it here
+create function products_delete_stock() returns trigger language plpgsql as
+$$
+begin
+    delete from product_stock where code = old.code;
+    return old;
+end;
+$$;
+
+create trigger products_delete_stock
+    after delete on products
+    for each row execute function products_delete_stock();
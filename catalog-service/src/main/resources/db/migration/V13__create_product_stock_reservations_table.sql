@@ -0,0 +1,26 @@
+-- every reservation of ProductStockService, so that it is released by its id and only once,
+-- and a retried reservation (same product and idempotency key) gets the first one back instead of reserving again
+create table product_stock_reservations
+(
+    id              uuid      not null,
+    code            text      not null,
+    quantity        bigint    not null,
+    idempotency_key text,
+    created_at      timestamp not null default now(),
+    released_at     timestamp,
+    primary key (id),
+    constraint product_stock_reservations_quantity_check check (quantity > 0)
+);
+
+create unique index product_stock_reservations_idempotency_key_idx
+    on product_stock_reservations (code, idempotency_key);
+
+-- a deleted product takes its reservations with its stock
+create or replace function products_delete_stock() returns trigger language plpgsql as
+$$
+begin
+    delete from product_stock where code = old.code;
+    delete from product_stock_reservations where code = old.code;
+    return old;
+end;
+$$;
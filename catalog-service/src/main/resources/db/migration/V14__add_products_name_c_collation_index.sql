@@ -0,0 +1,5 @@
+-- name prefix filter in name order (like 'prefix%' order by name, id), both in C collation: the range scan of
+-- the prefix is then also in the order of the page, the text_pattern_ops index could only filter (and sort after)
+create index products_name_c_id_idx on products (name collate "C", id);
+
+drop index products_name_pattern_idx;
@@ -0,0 +1,2 @@
+-- supports the keyset pagination ordered by (name, id)
+create index products_name_id_idx on products (name, id);
@@ -0,0 +1,9 @@
+-- full text search over name (weight A) and description (weight B),
+-- kept up to date by postgres itself since it is a generated column
+alter table products
+    add column search_vector tsvector generated always as (
+        setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) stored;
+
+create index products_search_vector_idx on products using gin (search_vector);
@@ -0,0 +1,4 @@
+-- version is incremented on every change (optimistic locking) and is the base of the product ETags
+alter table products
+    add column version    bigint    not null default 0,
+    add column updated_at timestamp not null default now();
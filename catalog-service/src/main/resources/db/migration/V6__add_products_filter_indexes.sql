@@ -0,0 +1,5 @@
+-- price range filters and price sorts (asc with a forward scan, desc with a backward scan)
+create index products_price_id_idx on products (price, id);
+
+-- name prefix filter (like 'prefix%'), the (name, id) index cannot be used for like with a non C collation
+create index products_name_pattern_idx on products (name text_pattern_ops);
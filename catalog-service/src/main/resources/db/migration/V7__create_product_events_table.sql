@@ -0,0 +1,14 @@
+-- transactional outbox, written in the same transaction as the product change and published by ProductEventsPublishingJob
+create sequence product_event_id_seq start with 1 increment by 50;
+
+create table product_events
+(
+    id           bigint default nextval('product_event_id_seq') not null,
+    product_code text                                           not null,
+    event_id     text                                           not null unique,
+    event_type   text                                           not null,
+    payload      text                                           not null,
+    created_at   timestamp                                      not null,
+    updated_at   timestamp,
+    primary key (id)
+);
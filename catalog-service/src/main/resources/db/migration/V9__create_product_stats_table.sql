@@ -0,0 +1,11 @@
+-- view counters aggregated in memory and added here in batches by ProductStatsFlushJob
+create table product_stats
+(
+    code       text      not null,
+    views      bigint    not null default 0,
+    updated_at timestamp not null default now(),
+    primary key (code)
+);
+
+-- top-N of GET /api/products/popular
+create index product_stats_views_idx on product_stats (views desc);
@@ -7,9 +7,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
 
+/**
+ * The startup warm-up is disabled: its requests would race with the test data, CatalogWarmupTest enables it.
+ */
 @Import(TestcontainersConfiguration.class)
 @SpringBootTest(webEnvironment = RANDOM_PORT)
+@TestPropertySource(properties = "catalog.warmup-enabled=false")
 public abstract class AbstractIT {
 
     /**
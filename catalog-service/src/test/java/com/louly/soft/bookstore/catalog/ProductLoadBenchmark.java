@@ -0,0 +1,205 @@
+package com.louly.soft.bookstore.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load of a running catalog-service, to compare the Spring MVC/JPA stack (default)
+ * with the WebFlux/R2DBC one (reactive profile) at high concurrency.
+ * Every client sends its next request as soon as it gets the previous response: half of them a page
+ * sorted by price (not served by the snapshot, so a database query per request), half of them a product by code.
+ * The heap used, live threads and database connections of the service are sampled from the actuator every second.
+ * Not run by the tests: mvn test-compile exec:exec -Pbenchmark -Dbenchmark.main=com.louly.soft.bookstore.catalog.ProductLoadBenchmark
+ * -Dbenchmark.args="[baseUrl] [concurrency] [seconds]"
+ */
+public class ProductLoadBenchmark {
+    private static final Duration WARMUP = Duration.ofSeconds(15);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final List<String> codes;
+    private final int pages;
+
+    ProductLoadBenchmark(String baseUrl, HttpClient client) throws IOException, InterruptedException {
+        this.baseUrl = baseUrl;
+        this.client = client;
+        JsonNode firstPage = get("/api/products?page=1&count=EXACT");
+        this.pages = firstPage.get("totalPages").asInt();
+        List<String> codes = new ArrayList<>();
+        firstPage.get("data").forEach(product -> codes.add(product.get("code").asText()));
+        this.codes = List.copyOf(codes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8081";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            ProductLoadBenchmark benchmark = new ProductLoadBenchmark(baseUrl, client);
+            System.out.printf("%s, %d clients, warm-up %ds%n", baseUrl, concurrency, WARMUP.toSeconds());
+            benchmark.run(concurrency, WARMUP);
+            System.out.printf("measuring %ds%n", duration.toSeconds());
+            Result result = benchmark.run(concurrency, duration);
+            System.out.println(result);
+        }
+    }
+
+    Result run(int concurrency, Duration duration) throws Exception {
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        Metrics metrics = new Metrics();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> sampler = executor.submit(() -> sample(metrics, end));
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> load(end, errors)));
+            }
+            long[] latencies = merge(clients);
+            sampler.get();
+            return new Result(latencies, duration, errors.get(), metrics);
+        }
+    }
+
+    /**
+     * @return the latencies of the successful requests in microseconds
+     */
+    private long[] load(long end, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            String path = random.nextBoolean()
+                    ? "/api/products?page=" + random.nextInt(1, pages + 1) + "&sort=PRICE_ASC&count=ESTIMATED"
+                    : "/api/products/" + codes.get(random.nextInt(codes.size()));
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request(path), HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = (System.nanoTime() - start) / 1000;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private void sample(Metrics metrics, long end) {
+        try {
+            while (System.nanoTime() < end) {
+                metrics.heapUsed = Math.max(metrics.heapUsed, metric("jvm.memory.used?tag=area:heap"));
+                metrics.threads = Math.max(metrics.threads, metric("jvm.threads.live"));
+                metrics.connections = Math.max(
+                        metrics.connections, metric("hikaricp.connections.active") + metric("r2dbc.pool.acquired"));
+                Thread.sleep(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 0 when the meter does not exist (no R2DBC pool with the default profile).
+     */
+    private long metric(String name) throws InterruptedException {
+        try {
+            JsonNode measurements = get("/actuator/metrics/" + name).get("measurements");
+            return measurements == null ? 0 : measurements.get(0).get("value").asLong();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request(path), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException(path + " returned " + response.statusCode());
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static long[] merge(List<Future<long[]>> clients) throws Exception {
+        List<long[]> all = new ArrayList<>(clients.size());
+        int size = 0;
+        for (Future<long[]> client : clients) {
+            long[] latencies = client.get();
+            all.add(latencies);
+            size += latencies.length;
+        }
+        long[] merged = new long[size];
+        int offset = 0;
+        for (long[] latencies : all) {
+            System.arraycopy(latencies, 0, merged, offset, latencies.length);
+            offset += latencies.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Maximum values seen by the sampler, written by a single thread.
+     */
+    private static final class Metrics {
+        volatile long heapUsed;
+        volatile long threads;
+        volatile long connections;
+    }
+
+    record Result(long[] latencies, Duration duration, long errors, Metrics metrics) {
+
+        long percentile(double percentile) {
+            return latencies.length == 0 ? 0 : latencies[(int) Math.ceil(percentile * latencies.length) - 1];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d requests, %d errors, %.0f req/s, p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, "
+                            + "max heap used %d MB, max live threads %d, max db connections %d",
+                    latencies.length,
+                    errors,
+                    latencies.length / (double) duration.toSeconds(),
+                    percentile(0.50) / 1000.0,
+                    percentile(0.99) / 1000.0,
+                    percentile(0.999) / 1000.0,
+                    metrics.heapUsed / (1024 * 1024),
+                    metrics.threads,
+                    metrics.connections);
+        }
+    }
+}
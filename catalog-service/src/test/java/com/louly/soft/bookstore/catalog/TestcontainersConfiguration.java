@@ -1,17 +1,46 @@
 package com.louly.soft.bookstore.catalog;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.DynamicPropertyRegistrar;
 import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
 import org.testcontainers.utility.DockerImageName;
 
+/**
+ * The containers are left out when the tests are pointed at a running Postgres (where there is no Docker), e.g.
+ * ./mvnw test -Dit.postgres-url=jdbc:postgresql://localhost:5432/catalog_it
+ * The tests truncate and reload the catalog tables, so give them a database of their own.
+ * RabbitMQ is then the one of spring.rabbitmq.*, only the product deleted event test needs it.
+ */
 @TestConfiguration(proxyBeanMethods = false)
 class TestcontainersConfiguration {
 
     @Bean
     @ServiceConnection
+    @ConditionalOnExpression("'${it.postgres-url:}'.isEmpty()")
     PostgreSQLContainer<?> postgresContainer() {
         return new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
     }
+
+    @Bean
+    @ServiceConnection
+    @ConditionalOnExpression("'${it.postgres-url:}'.isEmpty()")
+    RabbitMQContainer rabbitContainer() {
+        return new RabbitMQContainer(DockerImageName.parse("rabbitmq:3.12.11-alpine"));
+    }
+
+    @Bean
+    @ConditionalOnProperty("it.postgres-url")
+    DynamicPropertyRegistrar externalPostgres(Environment environment) {
+        String url = environment.getRequiredProperty("it.postgres-url");
+        return registry -> {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.r2dbc.url", () -> url.replaceFirst("^jdbc:", "r2dbc:"));
+        };
+    }
 }
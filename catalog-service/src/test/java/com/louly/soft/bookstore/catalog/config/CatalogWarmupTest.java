@@ -0,0 +1,73 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import com.louly.soft.bookstore.catalog.domain.ProductStatsService;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * No test data is loaded: the warm-up runs from the startup on, on the products already in the database.
+ * The views are only flushed by the test.
+ */
+@TestPropertySource(
+        properties = {"catalog.warmup-enabled=true", "catalog.warmup-duration=3s", "catalog.popular-flush-interval=1h"})
+class CatalogWarmupTest extends AbstractIT {
+
+    @Autowired
+    private CatalogWarmup catalogWarmup;
+
+    @Autowired
+    private ProductStatsService productStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldNotBeReadyBeforeTheWarmupIsFinished() throws InterruptedException {
+        boolean finished = false;
+        for (int i = 0; i < 120 && !finished; i++) {
+            boolean finishedBefore = catalogWarmup.isFinished();
+            int status = given().when().get("/actuator/health/readiness").statusCode();
+            finished = catalogWarmup.isFinished();
+            if (finishedBefore) {
+                assertThat(status).isEqualTo(200);
+            } else if (!finished) {
+                assertThat(status).isEqualTo(503);
+            }
+            Thread.sleep(100);
+        }
+
+        assertThat(finished).isTrue();
+        given().when().get("/actuator/health/readiness").then().statusCode(200);
+        given().when()
+                .get("/actuator/metrics/catalog.warmup.duration")
+                .then()
+                .statusCode(200)
+                .body("measurements[0].value", greaterThanOrEqualTo(3.0f));
+    }
+
+    @Test
+    void shouldNotCountTheWarmupRequestsAsViews() throws InterruptedException {
+        for (int i = 0; i < 120 && !catalogWarmup.isFinished(); i++) {
+            Thread.sleep(100);
+        }
+        List<Map<String, Object>> stats = productStats();
+
+        productStatsService.flush();
+
+        assertThat(catalogWarmup.isFinished()).isTrue();
+        assertThat(productStats()).isEqualTo(stats);
+    }
+
+    private List<Map<String, Object>> productStats() {
+        return jdbcTemplate.queryForList("select code, views from product_stats order by code");
+    }
+}
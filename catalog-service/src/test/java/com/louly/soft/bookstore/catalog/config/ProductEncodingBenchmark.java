@@ -0,0 +1,113 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.louly.soft.bookstore.catalog.domain.PagedResult;
+import com.louly.soft.bookstore.catalog.domain.Product;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CPU time of writing and reading a products page in the encodings of HttpMessageConvertersConfig,
+ * with mappers configured like the application ones (JacksonConfig filter).
+ * The setup prints the size of the page, as is and gzipped.
+ * Not run by the tests: mvn test-compile exec:exec -Pbenchmark -Dbenchmark.args=ProductEncodingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductEncodingBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    String encoding;
+
+    @Param({"10", "100"})
+    int pageSize;
+
+    private ObjectMapper mapper;
+    private JavaType pageType;
+    private PagedResult<Product> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory =
+                switch (encoding) {
+                    case "json" -> new JsonFactory();
+                    case "smile" -> new SmileFactory();
+                    case "cbor" -> new CBORFactory();
+                    default -> throw new IllegalArgumentException(encoding);
+                };
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()))
+                .build();
+        pageType = mapper.getTypeFactory().constructParametricType(PagedResult.class, Product.class);
+        page = page(pageSize);
+        encoded = mapper.writeValueAsBytes(page);
+        System.out.printf("%n%s page of %d: %d bytes, %d gzipped%n", encoding, pageSize, encoded.length, gzip(encoded));
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PagedResult<Product> read() throws IOException {
+        return mapper.readValue(encoded, pageType);
+    }
+
+    private static PagedResult<Product> page(int size) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product(
+                    "P" + (100 + i),
+                    "The Book Number " + i,
+                    "A description of the book number " + i + ", long enough to look like the ones of the catalog"
+                            + " with a few sentences about the story, its author and why readers loved it.",
+                    "https://images.gr-assets.com/books/" + (1_000_000_000L + random.nextInt(1_000_000)) + "l/"
+                            + random.nextInt(10_000_000) + ".jpg",
+                    BigDecimal.valueOf(random.nextInt(8000), 2),
+                    "Category " + random.nextInt(30),
+                    "Author " + random.nextInt(5000),
+                    null));
+        }
+        return new PagedResult<>(products, 1000, 1, 1000 / size, true, false, true, false, null, null);
+    }
+
+    private static int gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,276 @@
+package com.louly.soft.bookstore.catalog.config;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * The pools are mocks answering the WAL position queries, the time is the one of the test (now).
+ */
+class ReplicaRoutingDataSourceTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(10);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Pool primary = new Pool("primary");
+    private final Pool replica1 = new Pool("replica-1");
+    private final Pool replica2 = new Pool("replica-2");
+    private long now;
+
+    @Test
+    void shouldUseThePrimaryUntilTheReplicasAreChecked() {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+
+        assertThat(routing.select()).isSameAs(primary.dataSource);
+    }
+
+    @Test
+    void shouldRoundRobinOverTheReplicasInTime() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(120);
+        routing.checkLag();
+
+        List<DataSource> selected = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            selected.add(routing.select());
+        }
+
+        assertThat(selected)
+                .containsExactly(replica1.dataSource, replica2.dataSource, replica1.dataSource, replica2.dataSource);
+        assertThat(fallbacks()).isZero();
+        assertThat(lag("replica-1")).isZero();
+    }
+
+    @Test
+    void shouldPickTheReplicaWithLeastActiveConnections() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.LEAST_CONNECTIONS);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(100);
+        routing.checkLag();
+
+        replica1.activeConnections(5);
+        replica2.activeConnections(1);
+        assertThat(routing.select()).isSameAs(replica2.dataSource);
+
+        replica2.activeConnections(8);
+        assertThat(routing.select()).isSameAs(replica1.dataSource);
+    }
+
+    @Test
+    void shouldSkipTheLaggingReplica() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(100);
+        routing.checkLag();
+
+        now += MAX_LAG.toNanos() + SECONDS.toNanos(1);
+        primary.position(200);
+        replica2.replayed(200);
+        routing.checkLag();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.select()).isSameAs(replica2.dataSource);
+        }
+        assertThat(lag("replica-1")).isEqualTo(11.0);
+    }
+
+    @Test
+    void shouldBoundTheLagByTheLastCheckWhichSawThePrimaryThere() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(100);
+        routing.checkLag();
+
+        now += SECONDS.toNanos(5);
+        primary.position(150);
+        replica1.replayed(140);
+        routing.checkLag();
+
+        assertThat(lag("replica-1")).isEqualTo(5.0);
+        assertThat(routing.select()).isSameAs(replica1.dataSource);
+    }
+
+    @Test
+    void shouldNotUseAReplicaBehindThePrimaryAtTheFirstCheck() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(50);
+        replica2.replayed(100);
+        routing.checkLag();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.select()).isSameAs(replica2.dataSource);
+        }
+    }
+
+    @Test
+    void shouldDropAReplicaDisconnectedFromThePrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(100);
+        routing.checkLag();
+
+        // the primary is idle and the replica replayed all it received: only the receiver tells
+        now += SECONDS.toNanos(5);
+        replica1.receiver(null);
+        replica2.receiver("waiting");
+        routing.checkLag();
+
+        assertThat(lag("replica-1")).isZero();
+        assertThat(routing.select()).isSameAs(primary.dataSource);
+        assertThat(fallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFallBackToThePrimaryWhenEveryReplicaLags() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.LEAST_CONNECTIONS);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(100);
+        routing.checkLag();
+        assertThat(routing.select()).isNotSameAs(primary.dataSource);
+
+        now += MAX_LAG.toNanos() + SECONDS.toNanos(1);
+        primary.position(200);
+        when(replica2.dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+        routing.checkLag();
+
+        assertThat(routing.select()).isSameAs(primary.dataSource);
+        assertThat(fallbacks()).isEqualTo(1);
+        assertThat(lag("replica-2")).isNaN();
+    }
+
+    @Test
+    void shouldUseTheReplicaAgainOnceItCaughtUp() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(50);
+        replica2.replayed(50);
+        routing.checkLag();
+        assertThat(routing.select()).isSameAs(primary.dataSource);
+
+        now += SECONDS.toNanos(5);
+        primary.position(150);
+        replica1.replayed(120);
+        routing.checkLag();
+
+        assertThat(routing.select()).isSameAs(replica1.dataSource);
+    }
+
+    @Test
+    void shouldRouteOnlyTheReadOnlyTransactionsToTheReplicas() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(ReplicaSelection.ROUND_ROBIN);
+        primary.position(100);
+        replica1.replayed(100);
+        replica2.replayed(100);
+        routing.checkLag();
+        LazyConnectionDataSourceProxy dataSource = new ReplicaRoutingConfig().dataSource(routing);
+        Connection primaryConnection = mock(Connection.class);
+        Connection replicaConnection = mock(Connection.class);
+        when(primary.dataSource.getConnection()).thenReturn(primaryConnection);
+        when(replica1.dataSource.getConnection()).thenReturn(replicaConnection);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.createStatement();
+        }
+        verify(replicaConnection).createStatement();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(false);
+            connection.createStatement();
+        }
+        verify(primaryConnection).createStatement();
+    }
+
+    private ReplicaRoutingDataSource routing(ReplicaSelection selection) {
+        return new ReplicaRoutingDataSource(
+                primary.dataSource,
+                List.of(replica1.dataSource, replica2.dataSource),
+                selection,
+                MAX_LAG,
+                meterRegistry,
+                () -> now);
+    }
+
+    private double fallbacks() {
+        return meterRegistry
+                .get("catalog.datasource.replica.fallbacks")
+                .counter()
+                .count();
+    }
+
+    private double lag(String pool) {
+        return meterRegistry
+                .get("catalog.datasource.replica.lag")
+                .tag("pool", pool)
+                .gauge()
+                .value();
+    }
+
+    /**
+     * A mocked pool answering the WAL position queries of checkLag(): the position of the primary, or the replayed
+     * position and the WAL receiver status of a replica in recovery.
+     */
+    private static final class Pool {
+        private final HikariDataSource dataSource = mock(HikariDataSource.class);
+        private final HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        private final ResultSet resultSet = mock(ResultSet.class);
+
+        private Pool(String name) {
+            when(dataSource.getPoolName()).thenReturn(name);
+            when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        }
+
+        private void position(long lsn) throws SQLException {
+            answer();
+            when(resultSet.getLong(1)).thenReturn(lsn);
+        }
+
+        private void replayed(long lsn) throws SQLException {
+            answer();
+            when(resultSet.getBoolean(1)).thenReturn(true);
+            when(resultSet.getLong(2)).thenReturn(lsn);
+            receiver("streaming");
+        }
+
+        private void receiver(String status) throws SQLException {
+            when(resultSet.getString(3)).thenReturn(status);
+        }
+
+        private void answer() throws SQLException {
+            Connection connection = mock(Connection.class);
+            Statement statement = mock(Statement.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenReturn(resultSet);
+            when(resultSet.next()).thenReturn(true);
+        }
+
+        private void activeConnections(int active) {
+            when(pool.getActiveConnections()).thenReturn(active);
+        }
+    }
+}
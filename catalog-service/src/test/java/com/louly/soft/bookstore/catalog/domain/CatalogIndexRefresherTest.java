@@ -0,0 +1,73 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogIndexRefresherTest {
+
+    private final CountingIndex index = new CountingIndex();
+    private final CatalogIndexRefresher refresher = new CatalogIndexRefresher(List.of(index), properties());
+
+    @AfterEach
+    void shutdown() {
+        refresher.shutdown();
+    }
+
+    @Test
+    void shouldReloadOnceForBurstOfChanges() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            refresher.onProductsChanged();
+        }
+
+        assertThat(index.reloads.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(index.reloads.tryAcquire(500, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    @Test
+    void shouldReloadAgainForChangesAfterTheReload() throws InterruptedException {
+        refresher.onProductsChanged();
+        assertThat(index.reloads.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        refresher.onProductsChanged();
+        assertThat(index.reloads.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldReloadOtherIndexesWhenOneFails() throws InterruptedException {
+        CatalogIndex failing = () -> {
+            throw new IllegalStateException("database down");
+        };
+        CatalogIndexRefresher withFailure = new CatalogIndexRefresher(List.of(failing, index), properties());
+        try {
+            withFailure.onProductsChanged();
+
+            assertThat(index.reloads.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            withFailure.shutdown();
+        }
+    }
+
+    private static ApplicationProperties properties() {
+        ApplicationProperties properties = mock(ApplicationProperties.class);
+        when(properties.indexRefreshDelay()).thenReturn(Duration.ofMillis(100));
+        return properties;
+    }
+
+    private static class CountingIndex implements CatalogIndex {
+        private final Semaphore reloads = new Semaphore(0);
+
+        @Override
+        public void reload() {
+            reloads.release();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PopularityRankingTest {
+
+    private final PopularityRanking ranking = PopularityRanking.of(List.of(
+            new PopularProduct("P100", "The Hunger Games", 30),
+            new PopularProduct("P101", "To Kill a Mockingbird", 20),
+            new PopularProduct("P102", "The Chronicles of Narnia", 10)));
+
+    @Test
+    void shouldReturnMostViewedFirst() {
+        assertThat(ranking.top(2)).extracting(PopularProduct::code).containsExactly("P100", "P101");
+        assertThat(ranking.top(10)).hasSize(3);
+    }
+
+    @Test
+    void shouldMergeUpdatedTotalsKeepingTopN() {
+        PopularityRanking merged = ranking.merge(
+                List.of(
+                        new PopularProduct("P102", "The Chronicles of Narnia", 40),
+                        new PopularProduct("P103", "Gone with the Wind", 25)),
+                3);
+
+        assertThat(merged.top(10))
+                .extracting(PopularProduct::code, PopularProduct::views)
+                .containsExactly(tuple("P102", 40L), tuple("P100", 30L), tuple("P103", 25L));
+    }
+
+    @Test
+    void shouldOrderTiesByCode() {
+        PopularityRanking merged = PopularityRanking.empty()
+                .merge(List.of(new PopularProduct("P105", "b", 5), new PopularProduct("P104", "a", 5)), 10);
+
+        assertThat(merged.top(10)).extracting(PopularProduct::code).containsExactly("P104", "P105");
+    }
+}
@@ -0,0 +1,54 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ProductCodeFilterTest {
+    private static final List<String> CODES =
+            IntStream.range(0, 100_000).mapToObj(i -> "P" + i).toList();
+
+    private final ProductCodeFilter filter = ProductCodeFilter.build(CODES, 0.01);
+
+    @Test
+    void shouldContainEveryCode() {
+        assertThat(CODES).allMatch(filter::mightContain);
+        assertThat(filter.size()).isEqualTo(CODES.size());
+    }
+
+    @Test
+    void shouldRejectMostUnknownCodes() {
+        long falsePositives = IntStream.range(0, 100_000)
+                .mapToObj(i -> "X" + i)
+                .filter(filter::mightContain)
+                .count();
+
+        assertThat(falsePositives / 100_000.0).isCloseTo(0.01, within(0.005));
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.002));
+        // about 9.6 bits per code at 1%
+        assertThat(filter.sizeInBytes()).isBetween(110_000L, 130_000L);
+    }
+
+    @Test
+    void shouldContainCodesAddedToCopy() {
+        ProductCodeFilter copy = filter.withCodes(List.of("X1", "X2"));
+
+        assertThat(copy.mightContain("X1")).isTrue();
+        assertThat(copy.mightContain("X2")).isTrue();
+        assertThat(CODES).allMatch(copy::mightContain);
+        assertThat(copy.size()).isEqualTo(CODES.size() + 2);
+        assertThat(copy.sizeInBytes()).isEqualTo(filter.sizeInBytes());
+        assertThat(filter.size()).isEqualTo(CODES.size());
+    }
+
+    @Test
+    void shouldRejectEverythingWhenEmpty() {
+        ProductCodeFilter empty = ProductCodeFilter.build(List.of(), 0.01);
+
+        assertThat(empty.mightContain("P100")).isFalse();
+        assertThat(empty.size()).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of one /api/products/browse page and its facet counts on a synthetic catalog
+ * (30 categories, 5000 authors, the default price buckets), for selections of growing size.
+ * Not run by the tests: mvn test-compile exec:exec -Pbenchmark -Dbenchmark.args=ProductFacetBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ProductFacetBenchmark {
+    private static final List<BigDecimal> PRICE_BOUNDS =
+            List.of(new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"));
+
+    @Param({"100000", "1000000"})
+    int products;
+
+    /**
+     * none, one category, two categories and a price bucket, two price buckets (about 70% of the products)
+     */
+    @Param({"none", "category", "categories-price", "prices"})
+    String selection;
+
+    private ProductFacetIndex index;
+    private Map<String, Set<String>> selected;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<ProductAttributes> attributes = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            attributes.add(new ProductAttributes(
+                    "P" + i,
+                    "category" + random.nextInt(30),
+                    "author" + random.nextInt(5000),
+                    BigDecimal.valueOf(random.nextInt(8000), 2)));
+        }
+        index = ProductFacetIndex.build(attributes, PRICE_BOUNDS);
+        selected = switch (selection) {
+            case "none" -> Map.of();
+            case "category" -> Map.of(ProductFacetIndex.CATEGORY, Set.of("category7"));
+            case "categories-price" ->
+                Map.of(
+                        ProductFacetIndex.CATEGORY,
+                        Set.of("category7", "category8"),
+                        ProductFacetIndex.PRICE,
+                        Set.of("25-50"));
+            case "prices" -> Map.of(ProductFacetIndex.PRICE, Set.of("25-50", "50+"));
+            default -> throw new IllegalArgumentException(selection);
+        };
+    }
+
+    @Benchmark
+    public ProductFacetIndex.Result browse() {
+        return index.browse(selected, 0, 10, 20);
+    }
+}
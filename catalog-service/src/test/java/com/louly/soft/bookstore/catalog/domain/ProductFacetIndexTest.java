@@ -0,0 +1,85 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ProductFacetIndexTest {
+    private static final List<BigDecimal> PRICE_BOUNDS = List.of(new BigDecimal("10"), new BigDecimal("25"));
+
+    private final ProductFacetIndex index = ProductFacetIndex.build(
+            List.of(
+                    new ProductAttributes("P111", "Fantasy", "George R. R. Martin", new BigDecimal("32.0")),
+                    new ProductAttributes("P103", "Classics", "Margaret Mitchell", new BigDecimal("44.50")),
+                    new ProductAttributes("P105", "Children", "Shel Silverstein", new BigDecimal("9.99")),
+                    new ProductAttributes("P102", "Fantasy", "C. S. Lewis", new BigDecimal("14.50")),
+                    new ProductAttributes("P101", "Classics", "Harper Lee", new BigDecimal("45.40")),
+                    new ProductAttributes("P199", null, null, new BigDecimal("25"))),
+            PRICE_BOUNDS);
+
+    @Test
+    void shouldReturnAllProductsInOrderWithoutSelection() {
+        ProductFacetIndex.Result result = index.browse(Map.of(), 0, 10, 10);
+
+        assertThat(result.totalElements()).isEqualTo(6);
+        assertThat(result.codes()).containsExactly("P111", "P103", "P105", "P102", "P101", "P199");
+        assertThat(result.facets().get(ProductFacetIndex.CATEGORY))
+                .containsExactly(
+                        new FacetValueCount("Classics", 2),
+                        new FacetValueCount("Fantasy", 2),
+                        new FacetValueCount("Children", 1));
+        assertThat(result.facets().get(ProductFacetIndex.PRICE))
+                .containsExactly(
+                        new FacetValueCount("25+", 4), new FacetValueCount("0-10", 1), new FacetValueCount("10-25", 1));
+    }
+
+    @Test
+    void shouldOrValuesOfAFacetAndAndFacets() {
+        ProductFacetIndex.Result result = index.browse(
+                Map.of(
+                        ProductFacetIndex.CATEGORY, Set.of("Fantasy", "Classics"),
+                        ProductFacetIndex.PRICE, Set.of("25+")),
+                0,
+                10,
+                10);
+
+        assertThat(result.codes()).containsExactly("P111", "P103", "P101");
+        // counts of a facet ignore its own selection
+        assertThat(result.facets().get(ProductFacetIndex.CATEGORY))
+                .containsExactly(new FacetValueCount("Classics", 2), new FacetValueCount("Fantasy", 1));
+        assertThat(result.facets().get(ProductFacetIndex.PRICE))
+                .containsExactly(new FacetValueCount("25+", 3), new FacetValueCount("10-25", 1));
+    }
+
+    @Test
+    void shouldPageMatchingProducts() {
+        ProductFacetIndex.Result result = index.browse(Map.of(), 4, 10, 10);
+
+        assertThat(result.totalElements()).isEqualTo(6);
+        assertThat(result.codes()).containsExactly("P101", "P199");
+        assertThat(index.browse(Map.of(), 6, 10, 10).codes()).isEmpty();
+        assertThat(index.browse(Map.of(ProductFacetIndex.AUTHOR, Set.of("unknown")), 0, 10, 10)
+                        .totalElements())
+                .isZero();
+    }
+
+    @Test
+    void shouldReturnMostFrequentValuesOnly() {
+        assertThat(index.browse(Map.of(), 0, 10, 1).facets().get(ProductFacetIndex.CATEGORY))
+                .containsExactly(new FacetValueCount("Classics", 2));
+    }
+
+    @Test
+    void shouldBucketPrices() {
+        assertThat(ProductFacetIndex.priceBucket(new BigDecimal("9.99"), PRICE_BOUNDS))
+                .isEqualTo("0-10");
+        assertThat(ProductFacetIndex.priceBucket(new BigDecimal("10.00"), PRICE_BOUNDS))
+                .isEqualTo("10-25");
+        assertThat(ProductFacetIndex.priceBucket(new BigDecimal("25"), PRICE_BOUNDS))
+                .isEqualTo("25+");
+    }
+}
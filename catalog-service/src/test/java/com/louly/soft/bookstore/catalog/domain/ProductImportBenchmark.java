@@ -0,0 +1,135 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * A CSV import of 1M new products through ProductImportService (COPY, upsert and outbox events, in batches of
+ * catalog.import-batch-size), a single shot per iteration: the tear down of every iteration deletes the imported
+ * products (codes IMPORT-*) and their outbox events, so give it a database of its own. Only the JPA part of the
+ * application and the import are started, against a migrated catalog database, the events are not published.
+ * The CSV file is written once in the temp directory. Rows per second = rows / the reported seconds per import.
+ * mvn test-compile exec:exec -Pbenchmark -Dbenchmark.args="ProductImportBenchmark
+ * -p jdbcUrl=jdbc:postgresql://localhost:5432/postgres -p username=postgres -p password=postgres"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductImportBenchmark {
+
+    @Param("jdbc:postgresql://localhost:5432/postgres")
+    String jdbcUrl;
+
+    @Param("postgres")
+    String username;
+
+    @Param("postgres")
+    String password;
+
+    @Param("1000000")
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductImportService productImportService;
+    private JdbcTemplate jdbcTemplate;
+    private Path csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(ImportConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + jdbcUrl,
+                        "spring.datasource.username=" + username,
+                        "spring.datasource.password=" + password)
+                .run();
+        productImportService = context.getBean(ProductImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        csv = Files.createTempFile("products-import", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("code,name,description,image_url,price,category,author\n");
+            for (int i = 1; i <= rows; i++) {
+                writer.write("IMPORT-" + i + ",Imported Product " + i + ",\"A description, of product " + i
+                        + ".\",https://images.example.com/books/" + i + ".jpg," + (i % 8000 + 100) / 100 + "."
+                        + (i % 100) + ",Category " + (i % 30) + ",Author " + (i % 5000) + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImportedProducts() {
+        jdbcTemplate.update("delete from product_events where product_code like 'IMPORT-%'");
+        jdbcTemplate.update("delete from products where code like 'IMPORT-%'");
+        jdbcTemplate.execute("vacuum analyze products");
+        jdbcTemplate.execute("vacuum analyze product_events");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public ProductImportResult importCsv() throws IOException {
+        try (InputStream input = Files.newInputStream(csv)) {
+            return productImportService.importProducts(input, ImportFormat.CSV);
+        }
+    }
+
+    /**
+     * JPA and the validator, the import writes the outbox events itself and nothing is sent.
+     * Not a @Configuration, the component scan of the integration tests would pick its repositories up.
+     */
+    @ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        TransactionAutoConfiguration.class,
+        JacksonAutoConfiguration.class,
+        ValidationAutoConfiguration.class
+    })
+    @EnableConfigurationProperties(ApplicationProperties.class)
+    @EntityScan(basePackageClasses = ProductEntity.class)
+    @EnableJpaRepositories(basePackageClasses = ProductEntity.class)
+    @Import(ProductImportService.class)
+    static class ImportConfig {}
+}
@@ -0,0 +1,130 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A name ordered products page (with its count) read the way ProductService used to, managed entities in a read-write
+ * transaction mapped with ProductMapper, and the way it does now, the Product constructor projection in a read-only
+ * transaction. Only the JPA part of the application is started, against a migrated catalog database: the setup adds
+ * 5000 products (codes BENCH-*) and the tear down deletes them, so give it a database of its own.
+ * Run with the GC profiler for the allocations per page (gc.alloc.rate.norm):
+ * mvn test-compile exec:exec -Pbenchmark -Dbenchmark.args="ProductReadPathBenchmark -prof gc
+ * -p jdbcUrl=jdbc:postgresql://localhost:5432/postgres -p username=postgres -p password=postgres"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductReadPathBenchmark {
+    private static final int PAGE = 10;
+
+    @Param("jdbc:postgresql://localhost:5432/postgres")
+    String jdbcUrl;
+
+    @Param("postgres")
+    String username;
+
+    @Param("postgres")
+    String password;
+
+    @Param({"10", "100"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + jdbcUrl,
+                        "spring.datasource.username=" + username,
+                        "spring.datasource.password=" + password)
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbcTemplate.update(
+                """
+                insert into products (code, name, description, image_url, price, category, author)
+                select 'BENCH-' || i, 'Benchmark Product ' || lpad(i::text, 5, '0'), repeat('A description. ', 10),
+                       'https://images.example.com/books/' || i || '.jpg', (i % 8000) / 100.0,
+                       'Category ' || (i % 30), 'Author ' || (i % 5000)
+                from generate_series(1, 5000) as i
+                on conflict (code) do nothing
+                """);
+        jdbcTemplate.execute("analyze products");
+        pageable = PageRequest.of(PAGE, pageSize, ProductSort.NAME.sort());
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.update("delete from products where code like 'BENCH-%'");
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Product> entities() {
+        return readWrite.execute(status -> productRepository.findAll(pageable).map(ProductMapper::toProduct));
+    }
+
+    @Benchmark
+    public Page<Product> projection() {
+        return readOnly.execute(status -> productRepository.findProducts(pageable));
+    }
+
+    /**
+     * Only JDBC, JPA and the transactions, the other beans of the application are left out.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        TransactionAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = ProductEntity.class)
+    @EnableJpaRepositories(basePackageClasses = ProductEntity.class)
+    static class JpaConfig {}
+}
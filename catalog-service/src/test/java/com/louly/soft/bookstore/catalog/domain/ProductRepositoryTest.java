@@ -7,6 +7,10 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 
 /**
@@ -19,8 +23,8 @@ import org.springframework.test.context.jdbc.Sql;
 @DataJpaTest(
         properties = {
             "spring.test.database.replace=none", // do not try to create database testing in memory settings
-            "spring.datasource.url=jdbc:tc:postgresql:16-alpine:///db", // special database url where tests will talk to
-            // this db
+            "spring.datasource.url=${it.postgres-url:jdbc:tc:postgresql:16-alpine:///db}", // special database url where
+            // tests will talk to this db (or the running one of it.postgres-url, see TestcontainersConfiguration)
             // which only talk to the db itself not with other like rabbitMQ while testing repo does not need rabbitMQ
         })
 @Sql("/test-data.sql")
@@ -29,6 +33,9 @@ class ProductRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     // You don't need to test the methods provided by Spring Data JPA.
     // This test is to demonstrate how to write tests for the repository layer.
     @Test
@@ -52,4 +59,67 @@ class ProductRepositoryTest {
         var productOpt = productRepository.findByCode(code);
         assertThat(productOpt).isEmpty();
     }
+
+    @Test
+    void shouldFindProductsByCodes() {
+        List<ProductEntity> products = productRepository.findByCodeIn(List.of("P100", "P101", "invalid_product_code"));
+        assertThat(products).extracting(ProductEntity::getCode).containsExactlyInAnyOrder("P100", "P101");
+    }
+
+    @Test
+    void shouldSelectProductProjectionByCode() {
+        Product product = productRepository.findProductByCode("P100").orElseThrow();
+        assertThat(product.name()).isEqualTo("The Hunger Games");
+        assertThat(product.price()).isEqualTo(new BigDecimal("34.0"));
+        assertThat(product.version()).isZero();
+    }
+
+    @Test
+    void shouldSelectProductProjectionPage() {
+        Page<Product> page = productRepository.findProducts(PageRequest.of(1, 10, Sort.by("name")));
+        assertThat(page.getTotalElements()).isEqualTo(15);
+        assertThat(page.getContent()).hasSize(5).extracting(Product::name).isSorted();
+    }
+
+    @Test
+    void shouldMoveSnapshotVersionWhenProductIsReplacedWithTheSameCount() {
+        ProductSnapshotVersion before = productRepository.findSnapshotVersion();
+
+        jdbcTemplate.update("delete from products where code = 'P114'");
+        jdbcTemplate.update("insert into products(code, name, price) values ('P115', 'Replacement', 27)");
+
+        assertThat(productRepository.count()).isEqualTo(15);
+        assertThat(productRepository.findSnapshotVersion().lastChangeSeq()).isGreaterThan(before.lastChangeSeq());
+    }
+
+    @Test
+    void shouldMoveSnapshotVersionWhenProductIsDeleted() {
+        ProductSnapshotVersion before = productRepository.findSnapshotVersion();
+
+        jdbcTemplate.update("delete from products where code = 'P114'");
+
+        assertThat(productRepository.findSnapshotVersion().lastChangeSeq()).isGreaterThan(before.lastChangeSeq());
+    }
+
+    /**
+     * The name prefix page of ProductSpecifications: the index gives the rows in page order, nothing is sorted.
+     * The sequential scan is disabled, on a test table it would always win.
+     */
+    @Test
+    void shouldReadNamePrefixPageInIndexOrder() {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+
+        String plan = String.join(
+                "\n",
+                jdbcTemplate.queryForList(
+                        """
+                        explain select code from products
+                        where (name collate "C") like 'The%' escape '\\'
+                        order by (name collate "C"), id
+                        offset 10 rows fetch first 10 rows only
+                        """,
+                        String.class));
+
+        assertThat(plan).contains("products_name_c_id_idx").doesNotContain("Sort");
+    }
 }
@@ -0,0 +1,75 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * Counts the SQL statements prepared by Hibernate for repeated reads with the second-level and query caches enabled.
+ * The response cache is disabled so every read reaches the repository.
+ */
+@TestPropertySource(properties = {"catalog.second-level-cache-enabled=true", "catalog.response-cache-enabled=false"})
+@Sql("/test-data.sql")
+class ProductSecondLevelCacheTest extends AbstractIT {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void clearCaches() {
+        // test-data.sql reloads the table with plain JDBC, which Hibernate does not see
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldReadProductByCodeOnceFromDatabase() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(productService.getProductByCode("P100"))
+                    .hasValueSatisfying(product -> assertThat(product.name()).isEqualTo("The Hunger Games"));
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldReadProductPageOnceFromDatabase() {
+        for (int i = 0; i < 5; i++) {
+            PagedResult<Product> page = productService.getProducts(1, TotalCountMode.EXACT);
+            assertThat(page.data()).hasSize(10);
+            assertThat(page.totalElements()).isEqualTo(15);
+        }
+
+        // the page and its count query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(8);
+    }
+
+    @Test
+    void shouldNotServeCachedPageAfterProductIsDeleted() {
+        assertThat(productService.getProducts(1, TotalCountMode.EXACT).totalElements())
+                .isEqualTo(15);
+
+        productService.deleteProduct("P100");
+
+        assertThat(productService.getProducts(1, TotalCountMode.EXACT).totalElements())
+                .isEqualTo(14);
+    }
+}
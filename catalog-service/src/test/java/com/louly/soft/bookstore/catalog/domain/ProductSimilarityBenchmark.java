@@ -0,0 +1,81 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of one /api/products/{code}/similar lookup on a synthetic catalog, scalar vs SIMD dot products.
+ * Not run by the tests: mvn test-compile exec:exec -Pbenchmark
+ * The 1M catalog takes 512 MB of vectors, hence the heap of the fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+        value = 1,
+        jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx3g"})
+public class ProductSimilarityBenchmark {
+    private static final String[] WORDS = words(20_000);
+
+    @Param({"100000", "1000000"})
+    int products;
+
+    @Param({"scalar", "vector"})
+    String dotProduct;
+
+    private ProductSimilarityIndex index;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<ProductText> texts = new ArrayList<>(products);
+        codes = new String[products];
+        for (int i = 0; i < products; i++) {
+            codes[i] = "P" + i;
+            texts.add(new ProductText(codes[i], sentence(random, 4), sentence(random, 40)));
+        }
+        DotProduct implementation = "vector".equals(dotProduct) ? new VectorDotProduct() : new ScalarDotProduct();
+        index = ProductSimilarityIndex.build(texts, 128, implementation);
+    }
+
+    @Benchmark
+    public List<SimilarProduct> similar() {
+        next = (next + 7919) % codes.length;
+        return index.similar(codes[next], 10).orElseThrow();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            // skewed towards the first words, like a natural vocabulary
+            int word = (int) (WORDS.length * Math.pow(random.nextDouble(), 3));
+            sentence.append(WORDS[word]).append(' ');
+        }
+        return sentence.toString();
+    }
+
+    private static String[] words(int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = "w" + Integer.toString(i, 36);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,60 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ProductSimilarityIndexTest {
+    private static final List<ProductText> PRODUCTS = List.of(
+            new ProductText("P100", "The Hunger Games", "Winning will make you famous. Losing means certain death..."),
+            new ProductText("P101", "To Kill a Mockingbird", "The unforgettable novel of a childhood in a sleepy town"),
+            new ProductText("P102", "Catching Fire", "The second book of The Hunger Games trilogy, Katniss wins"),
+            new ProductText(
+                    "P103", "Mockingjay", "The final book of The Hunger Games trilogy, Katniss and the rebellion"),
+            new ProductText("P104", "Gardening", "Tomatoes and roses"));
+
+    private final ProductSimilarityIndex index = ProductSimilarityIndex.build(PRODUCTS, 64, new ScalarDotProduct());
+
+    @Test
+    void shouldReturnMostSimilarProductsFirst() {
+        List<SimilarProduct> similar = index.similar("P102", 10).orElseThrow();
+
+        assertThat(similar).extracting(SimilarProduct::code).startsWith("P103", "P100");
+        assertThat(similar).extracting(SimilarProduct::code).doesNotContain("P102", "P104");
+        assertThat(similar.get(0).score()).isGreaterThan(similar.get(1).score());
+    }
+
+    @Test
+    void shouldLimitTheNumberOfSimilarProducts() {
+        List<SimilarProduct> all = index.similar("P100", 10).orElseThrow();
+
+        assertThat(index.similar("P100", 1).orElseThrow()).containsExactly(all.get(0));
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownCode() {
+        assertThat(index.similar("P999", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldComputeTheSameDotProductWithVectors() {
+        DotProduct best = DotProduct.best();
+        assertThat(best).isInstanceOf(VectorDotProduct.class);
+
+        Random random = new Random(42);
+        float[] a = new float[1000];
+        float[] b = new float[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextFloat() - 0.5f;
+            b[i] = random.nextFloat() - 0.5f;
+        }
+        // odd offsets and lengths exercise the tail loop
+        for (int length : new int[] {1, 7, 64, 131, 500}) {
+            assertThat(best.dot(a, 3, b, 11, length))
+                    .isCloseTo(new ScalarDotProduct().dot(a, 3, b, 11, length), within(1e-4f));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ProductSnapshotTest {
+
+    private final ProductSnapshot snapshot = ProductSnapshot.of(
+            IntStream.rangeClosed(1, 25)
+                    .mapToObj(i -> new Product(
+                            "P" + i, "Book %02d".formatted(i), null, null, BigDecimal.valueOf(i), null, null, 0L))
+                    .toList(),
+            new ProductSnapshotVersion(25));
+
+    @Test
+    void shouldGetProductByCode() {
+        assertThat(snapshot.get("P7"))
+                .hasValueSatisfying(p -> assertThat(p.name()).isEqualTo("Book 07"));
+        assertThat(snapshot.get("P99")).isEmpty();
+    }
+
+    @Test
+    void shouldReturnPagesInLoadedOrder() {
+        PagedResult<Product> first = snapshot.page(0, 10, true);
+        assertThat(first.data())
+                .extracting(Product::code)
+                .startsWith("P1", "P2")
+                .hasSize(10);
+        assertThat(first.totalElements()).isEqualTo(25);
+        assertThat(first.totalPages()).isEqualTo(3);
+        assertThat(first.isFirst()).isTrue();
+        assertThat(first.hasNext()).isTrue();
+
+        PagedResult<Product> last = snapshot.page(2, 10, true);
+        assertThat(last.data()).extracting(Product::code).containsExactly("P21", "P22", "P23", "P24", "P25");
+        assertThat(last.isLast()).isTrue();
+        assertThat(last.hasPrevious()).isTrue();
+    }
+
+    @Test
+    void shouldReturnEmptyPageBeyondTheEnd() {
+        PagedResult<Product> page = snapshot.page(5, 10, false);
+        assertThat(page.data()).isEmpty();
+        assertThat(page.totalElements()).isEqualTo(PagedResult.UNKNOWN);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void shouldHandleEmptyCatalog() {
+        ProductSnapshot empty = ProductSnapshot.of(List.of(), new ProductSnapshotVersion(0));
+        PagedResult<Product> page = empty.page(0, 10, true);
+        assertThat(page.data()).isEmpty();
+        assertThat(page.isFirst()).isTrue();
+        assertThat(page.isLast()).isTrue();
+    }
+}
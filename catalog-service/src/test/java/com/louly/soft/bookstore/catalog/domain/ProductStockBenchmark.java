@@ -0,0 +1,112 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Closed-loop reservations of one hot product through ProductStockService, against a migrated catalog database:
+ * every caller (a virtual thread) reserves 1, with an idempotency key of its own, as soon as its previous reservation
+ * is committed. Prints the committed reservations per second, their latency and the mean batch size.
+ * It sets the stock of the product and leaves its reservations behind, so give it a database of its own.
+ * Not run by the tests: mvn test-compile exec:exec -Pbenchmark
+ * -Dbenchmark.main=com.louly.soft.bookstore.catalog.domain.ProductStockBenchmark
+ * -Dbenchmark.args="[jdbcUrl] [user] [password] [code] [callers] [seconds]"
+ */
+public class ProductStockBenchmark {
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final int MAX_LATENCIES = 1 << 17;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5432/postgres";
+        String user = args.length > 1 ? args[1] : "postgres";
+        String password = args.length > 2 ? args[2] : "postgres";
+        String code = args.length > 3 ? args[3] : "P100";
+        int callers = args.length > 4 ? Integer.parseInt(args[4]) : 256;
+        Duration duration = Duration.ofSeconds(args.length > 5 ? Long.parseLong(args[5]) : 20);
+
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(user);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(10);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            ApplicationProperties properties = new Binder(
+                            new MapConfigurationPropertySource(Map.of("catalog.stock-reservations-enabled", "true")))
+                    .bindOrCreate("catalog", ApplicationProperties.class);
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            ProductStockService service = new ProductStockService(
+                    jdbcTemplate,
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                    properties,
+                    meterRegistry);
+            service.start();
+            try {
+                service.setQuantity(code, service.getStock(code).reserved() + 1_000_000_000L);
+                System.out.printf("%s, %d callers, warm-up %ds%n", code, callers, WARMUP.toSeconds());
+                run(service, code, callers, WARMUP);
+                DistributionSummary batchSizes =
+                        meterRegistry.get("catalog.stock.batch.size").summary();
+                long batches = batchSizes.count();
+                double reservations = batchSizes.totalAmount();
+                System.out.printf("measuring %ds%n", duration.toSeconds());
+                long[] latencies = run(service, code, callers, duration);
+                System.out.printf(
+                        "%.0f reservations/s, p50 %.2f ms, p99 %.2f ms, mean batch %.0f%n",
+                        latencies.length / (double) duration.toSeconds(),
+                        latencies[latencies.length / 2] / 1e6,
+                        latencies[(int) (latencies.length * 0.99)] / 1e6,
+                        (batchSizes.totalAmount() - reservations) / (batchSizes.count() - batches));
+            } finally {
+                service.stop();
+            }
+        }
+    }
+
+    /**
+     * The sorted latencies of the committed reservations, the first MAX_LATENCIES of every caller.
+     */
+    private static long[] run(ProductStockService service, String code, int callers, Duration duration)
+            throws Exception {
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicLong keys = new AtomicLong();
+        List<Future<long[]>> results = new ArrayList<>(callers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    long[] latencies = new long[MAX_LATENCIES];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        service.reserve(code, 1, "benchmark-" + start + "-" + keys.incrementAndGet())
+                                .join();
+                        if (count < latencies.length) {
+                            latencies[count++] = System.nanoTime() - start;
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        List<long[]> latencies = new ArrayList<>(callers);
+        for (Future<long[]> result : results) {
+            latencies.add(result.get());
+        }
+        return latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    }
+}
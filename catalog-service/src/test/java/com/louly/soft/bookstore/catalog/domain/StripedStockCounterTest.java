@@ -0,0 +1,77 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class StripedStockCounterTest {
+
+    @Test
+    void shouldRefuseReservationsBeyondTheStock() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertThat(counter.tryReserve(7)).isTrue();
+        assertThat(counter.tryReserve(4)).isFalse();
+        assertThat(counter.tryReserve(3)).isTrue();
+        assertThat(counter.tryReserve(1)).isFalse();
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void shouldGatherTheStripesForALargeReservation() {
+        // 8 stripes of 2 or 3, no single stripe has 20
+        StripedStockCounter counter = new StripedStockCounter(8, 20);
+
+        assertThat(counter.tryReserve(20)).isTrue();
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void shouldReleaseAndSetTheStock() {
+        StripedStockCounter counter = new StripedStockCounter(4, 5);
+        counter.tryReserve(5);
+
+        counter.release(2);
+        assertThat(counter.available()).isEqualTo(2);
+        assertThat(counter.tryReserve(2)).isTrue();
+
+        counter.set(8);
+        assertThat(counter.available()).isEqualTo(8);
+        counter.set(-3);
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void shouldNeverOversellUnderContention() throws InterruptedException {
+        StripedStockCounter counter = new StripedStockCounter(4, 10_000);
+        AtomicLong reserved = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 5_000; j++) {
+                    if (counter.tryReserve(1 + j % 3)) {
+                        reserved.addAndGet(1 + j % 3);
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(reserved.get() + counter.available()).isEqualTo(10_000);
+        assertThat(counter.available()).isLessThan(3);
+    }
+}
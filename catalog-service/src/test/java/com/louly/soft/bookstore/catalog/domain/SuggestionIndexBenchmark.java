@@ -0,0 +1,126 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Suggestion index of a synthetic catalog (titles of 2 to 6 words out of 20000): full build, merge of the products
+ * added and renamed since the last refresh, and a lookup of a 1 to 4 letters prefix.
+ * The setup prints the heap retained by the index, measured after a GC, next to estimatedMemoryBytes(). The measure
+ * leaves out the code and name strings, which the index shares with the product list it is built from,
+ * the estimate counts them.
+ * Not run by the tests: mvn test-compile exec:exec -Pbenchmark -Dbenchmark.args=SuggestionIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SuggestionIndexBenchmark {
+    private static final int WORDS = 20_000;
+
+    @Param({"1000000"})
+    int products;
+
+    @Param({"1000"})
+    int changed;
+
+    private List<ProductName> names;
+    private List<ProductName> changes;
+    private String[] prefixes;
+    private SuggestionIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = word(random);
+        }
+        names = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            names.add(new ProductName(i + 1L, "P" + (i + 1), title(random, words)));
+        }
+        // half of them renamed, half of them new
+        changes = new ArrayList<>(changed);
+        for (int i = 0; i < changed; i++) {
+            long id = i % 2 == 0 ? random.nextInt(products) + 1 : products + i + 1;
+            changes.add(new ProductName(id, "P" + id, title(random, words)));
+        }
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String word = words[random.nextInt(WORDS)];
+            prefixes[i] = word.substring(0, Math.min(word.length(), 1 + random.nextInt(4)));
+        }
+
+        long before = usedHeap();
+        index = SuggestionIndex.build(names);
+        long retained = usedHeap() - before;
+        System.out.printf(
+                "%n%d products: retained %d MB without the code and name strings (estimatedMemoryBytes %d MB with them)%n",
+                index.size(), retained >> 20, index.estimatedMemoryBytes() >> 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 3)
+    public SuggestionIndex build() {
+        return SuggestionIndex.build(names);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SuggestionIndex merge() {
+        return index.merge(changes);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<ProductSuggestion> suggest() {
+        return index.suggest(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+
+    private static String title(Random random, String[] words) {
+        StringBuilder title = new StringBuilder();
+        for (int i = 2 + random.nextInt(5); i > 0; i--) {
+            String word = words[random.nextInt(WORDS)];
+            title.append(Character.toUpperCase(word.charAt(0)))
+                    .append(word, 1, word.length())
+                    .append(' ');
+        }
+        return title.toString().strip();
+    }
+
+    private static String word(Random random) {
+        char[] word = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
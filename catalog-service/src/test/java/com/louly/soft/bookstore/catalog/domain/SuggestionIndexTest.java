@@ -0,0 +1,91 @@
+package com.louly.soft.bookstore.catalog.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SuggestionIndexTest {
+
+    private final SuggestionIndex index = SuggestionIndex.build(List.of(
+            new ProductName(1L, "P100", "The Hunger Games"),
+            new ProductName(2L, "P101", "To Kill a Mockingbird"),
+            new ProductName(3L, "P102", "The Chronicles of Narnia"),
+            new ProductName(4L, "P103", "Pokémon Adventures")));
+
+    @Test
+    void shouldSuggestByTitlePrefix() {
+        assertThat(index.suggest("the", 10)).extracting(ProductSuggestion::code).containsExactly("P102", "P100");
+    }
+
+    @Test
+    void shouldSuggestByWordPrefixIgnoringCaseAndAccents() {
+        assertThat(index.suggest("GAM", 10)).containsExactly(new ProductSuggestion("P100", "The Hunger Games"));
+        assertThat(index.suggest("pokemon", 10))
+                .extracting(ProductSuggestion::code)
+                .containsExactly("P103");
+    }
+
+    @Test
+    void shouldLimitSuggestions() {
+        assertThat(index.suggest("t", 1)).hasSize(1);
+        assertThat(index.suggest("unknown", 10)).isEmpty();
+        assertThat(index.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldMergeAddedAndRenamedProducts() {
+        SuggestionIndex merged = index.merge(List.of(
+                new ProductName(5L, "P104", "The Fault in Our Stars"), new ProductName(1L, "P100", "Catching Fire")));
+
+        assertThat(merged.size()).isEqualTo(5);
+        assertThat(merged.maxId()).isEqualTo(5L);
+        assertThat(merged.suggest("the", 10))
+                .extracting(ProductSuggestion::code)
+                .containsExactly("P102", "P104");
+        assertThat(merged.suggest("fire", 10))
+                .extracting(ProductSuggestion::code)
+                .containsExactly("P100");
+    }
+
+    @Test
+    void shouldMergeLikeFullBuild() {
+        Random random = new Random(42);
+        List<String> words = List.of("the", "war", "peace", "game", "gamma", "théâtre", "night", "nights", "a", "z");
+        List<ProductName> products = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            products.add(new ProductName(i, "P" + i, name(random, words)));
+        }
+        List<ProductName> changed = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // renamed products and new ones
+            long id = i % 2 == 0 ? random.nextInt(500) : 500 + i;
+            changed.add(new ProductName(id, "P" + id, name(random, words)));
+        }
+        Map<Long, ProductName> all = new LinkedHashMap<>();
+        products.forEach(product -> all.put(product.id(), product));
+        changed.forEach(product -> all.put(product.id(), product));
+
+        SuggestionIndex merged = SuggestionIndex.build(products).merge(changed);
+        SuggestionIndex built = SuggestionIndex.build(List.copyOf(all.values()));
+
+        assertThat(merged.size()).isEqualTo(built.size());
+        for (String prefix : List.of("t", "the", "ga", "gam", "game", "theat", "n", "nights", "a", "z", "x")) {
+            assertThat(merged.suggest(prefix, 1000))
+                    .as(prefix)
+                    .containsExactlyInAnyOrderElementsOf(built.suggest(prefix, 1000));
+        }
+    }
+
+    private static String name(Random random, List<String> words) {
+        StringBuilder name = new StringBuilder();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            name.append(words.get(random.nextInt(words.size()))).append(' ');
+        }
+        return name.toString().strip();
+    }
+}
@@ -0,0 +1,19 @@
+package com.louly.soft.bookstore.catalog.jobs;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.louly.soft.bookstore.catalog.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.Test;
+
+class ReplicaLagCheckJobTest {
+
+    @Test
+    void shouldCheckTheLagOfTheReplicas() {
+        ReplicaRoutingDataSource replicaRoutingDataSource = mock(ReplicaRoutingDataSource.class);
+
+        new ReplicaLagCheckJob(replicaRoutingDataSource).checkReplicaLag();
+
+        verify(replicaRoutingDataSource).checkLag();
+    }
+}
@@ -0,0 +1,208 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import com.louly.soft.bookstore.catalog.ApplicationProperties;
+import com.louly.soft.bookstore.catalog.domain.models.ProductCreatedEvent;
+import com.louly.soft.bookstore.catalog.domain.models.ProductDeletedEvent;
+import com.louly.soft.bookstore.catalog.domain.models.ProductPriceChangedEvent;
+import io.restassured.http.ContentType;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+@Sql("/test-data.sql")
+@TestPropertySource(properties = {"catalog.admin-api-enabled=true", "catalog.import-batch-size=2"})
+class ProductAdminControllerTest extends AbstractIT {
+
+    @Autowired
+    AmqpAdmin amqpAdmin;
+
+    @Autowired
+    RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    ApplicationProperties properties;
+
+    @Test
+    void shouldImportProductsFromCsv() {
+        String csv =
+                """
+                code,name,description,image_url,price
+                P100,"The Hunger Games, Revised","Winning will make you famous.",https://images.gr-assets.com/books/1447303603l/2767052.jpg,40.0
+                P200,New Book,"A ""quoted"" description",,25.5
+                P201,Another New Book,,,12
+                """;
+
+        given().contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(200)
+                .body("totalRows", is(3))
+                .body("upsertedRows", is(3))
+                .body("rejectedRows", is(0))
+                .body("batches", hasSize(2));
+
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .body("name", is("The Hunger Games, Revised"))
+                .body("price", is(40.0f));
+
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P200")
+                .then()
+                .statusCode(200)
+                .body("description", is("A \"quoted\" description"));
+    }
+
+    @Test
+    void shouldRejectInvalidRowsFromNdjson() {
+        String ndjson =
+                """
+                {"code":"P300","name":"Valid Book","price":10.5}
+                {"code":"P301","price":11}
+                {"code":"P302","name":"Negative Price","price":-1}
+                """;
+
+        given().contentType("application/x-ndjson")
+                .body(ndjson.getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(200)
+                .body("totalRows", is(3))
+                .body("upsertedRows", is(1))
+                .body("rejectedRows", is(2))
+                .body("errors", hasSize(2));
+    }
+
+    @Test
+    void shouldNotUpdateUnchangedProducts() {
+        String ndjson = """
+                {"code":"P300","name":"Valid Book","price":10.5}
+                """;
+        for (int i = 0; i < 2; i++) {
+            given().contentType("application/x-ndjson")
+                    .body(ndjson.getBytes(StandardCharsets.UTF_8))
+                    .post("/api/products/import")
+                    .then()
+                    .statusCode(200)
+                    .body("upsertedRows", is(1 - i));
+        }
+    }
+
+    @Test
+    void shouldReturnBadRequestForMalformedInput() {
+        given().contentType("application/x-ndjson")
+                .body("{\"code\":\"P300\",".getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(400)
+                .body("title", is("Invalid Product Import"));
+    }
+
+    @Test
+    void shouldPublishTheEventsOfImportedProducts() {
+        Queue created = declareQueue(properties.productCreatedRoutingKey());
+        Queue priceChanged = declareQueue(properties.productPriceChangedRoutingKey());
+        String csv =
+                """
+                code,name,description,image_url,price
+                P100,The Hunger Games,Winning will make you famous. Losing means certain death...,https://images.gr-assets.com/books/1447303603l/2767052.jpg,40.0
+                P200,New Book,"A ""quoted"" description",,25.5
+                """;
+
+        given().contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(200)
+                .body("upsertedRows", is(2));
+
+        ProductCreatedEvent createdEvent = rabbitTemplate.receiveAndConvert(
+                created.getName(), 15_000, ParameterizedTypeReference.forType(ProductCreatedEvent.class));
+        assertThat(createdEvent).isNotNull();
+        assertThat(createdEvent.code()).isEqualTo("P200");
+        assertThat(createdEvent.description()).isEqualTo("A \"quoted\" description");
+        assertThat(createdEvent.price()).isEqualByComparingTo("25.5");
+        assertThat(createdEvent.createdAt()).isNotNull();
+        ProductPriceChangedEvent priceChangedEvent = rabbitTemplate.receiveAndConvert(
+                priceChanged.getName(), 15_000, ParameterizedTypeReference.forType(ProductPriceChangedEvent.class));
+        assertThat(priceChangedEvent).isNotNull();
+        assertThat(priceChangedEvent.code()).isEqualTo("P100");
+        assertThat(priceChangedEvent.oldPrice()).isEqualByComparingTo("34.0");
+        assertThat(priceChangedEvent.newPrice()).isEqualByComparingTo("40.0");
+    }
+
+    @Test
+    void shouldDeleteProductAndPublishProductDeletedEvent() {
+        Queue queue = declareQueue(properties.productDeletedRoutingKey());
+
+        given().when().delete("/api/products/{code}", "P100").then().statusCode(204);
+        given().when().get("/api/products/{code}", "P100").then().statusCode(404);
+
+        ProductDeletedEvent event = rabbitTemplate.receiveAndConvert(
+                queue.getName(), 15_000, ParameterizedTypeReference.forType(ProductDeletedEvent.class));
+        assertThat(event).isNotNull();
+        assertThat(event.code()).isEqualTo("P100");
+    }
+
+    @Test
+    void shouldReturnChangesSinceChangeSequence() {
+        long since = given().when()
+                .get("/api/products/changes?since=0")
+                .then()
+                .statusCode(200)
+                .body("products.code", hasItem("P101"))
+                .body("hasMore", is(false))
+                .extract()
+                .jsonPath()
+                .getLong("nextSince");
+
+        given().when().delete("/api/products/{code}", "P101").then().statusCode(204);
+
+        given().when()
+                .get("/api/products/changes?since={since}", since)
+                .then()
+                .statusCode(200)
+                .body("products", hasSize(0))
+                .body("deletedCodes", contains("P101"))
+                .body("nextSince", greaterThan(Math.toIntExact(since)));
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenDeletingUnknownProduct() {
+        given().when().delete("/api/products/{code}", "P999").then().statusCode(404);
+    }
+
+    private Queue declareQueue(String routingKey) {
+        Queue queue = amqpAdmin.declareQueue();
+        amqpAdmin.declareBinding(BindingBuilder.bind(queue)
+                .to(new DirectExchange(properties.productEventsExchange()))
+                .with(routingKey));
+        return queue;
+    }
+}
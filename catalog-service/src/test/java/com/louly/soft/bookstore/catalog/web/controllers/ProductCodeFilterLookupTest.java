@@ -0,0 +1,90 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
+import static org.springframework.test.context.jdbc.SqlMergeMode.MergeMode.MERGE;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import com.louly.soft.bookstore.catalog.domain.ProductCodeFilterService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+
+/**
+ * The filter is rebuilt before each test, test-data.sql reloads the products with plain SQL.
+ */
+@TestPropertySource(
+        properties = {
+            "catalog.code-filter-enabled=true",
+            "catalog.code-filter-refresh-interval=1h",
+            "catalog.index-refresh-delay=1h",
+            "catalog.admin-api-enabled=true"
+        })
+@Sql("/test-data.sql")
+class ProductCodeFilterLookupTest extends AbstractIT {
+
+    @Autowired
+    private ProductCodeFilterService productCodeFilterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void rebuildCodeFilter() {
+        productCodeFilterService.reload();
+    }
+
+    @Test
+    void shouldRejectUnknownCodeWithoutLookingItUp() {
+        double rejected = meterRegistry.counter("catalog.code.filter.rejected").count();
+
+        given().when().get("/api/products/{code}", "P900").then().statusCode(404);
+
+        assertThat(meterRegistry.counter("catalog.code.filter.rejected").count())
+                .isEqualTo(rejected + 1);
+    }
+
+    @Test
+    void shouldFindProductImportedHereRightAway() {
+        given().when().get("/api/products/{code}", "P901").then().statusCode(404);
+        given().contentType("text/csv")
+                .body("code,name,description,image_url,price\nP901,Imported Here,,,10\n")
+                .when()
+                .post("/api/products/import")
+                .then()
+                .statusCode(200);
+
+        // the index rebuild is an hour away, the commit added the code
+        given().when()
+                .get("/api/products/{code}", "P901")
+                .then()
+                .statusCode(200)
+                .body("name", is("Imported Here"));
+    }
+
+    @Test
+    @Sql(statements = "delete from products where code = 'P900'", executionPhase = AFTER_TEST_METHOD)
+    @SqlMergeMode(MERGE)
+    void shouldFindProductInsertedElsewhereOnceTheFilterIsRefreshed() {
+        jdbcTemplate.update("insert into products(code, name, price) values ('P900', 'Created Elsewhere', 10)");
+
+        given().when().get("/api/products/{code}", "P900").then().statusCode(404);
+        productCodeFilterService.refresh();
+
+        given().when()
+                .get("/api/products/{code}", "P900")
+                .then()
+                .statusCode(200)
+                .body("name", is("Created Elsewhere"));
+    }
+}
@@ -1,17 +1,41 @@
 package com.louly.soft.bookstore.catalog.web.controllers;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 import com.louly.soft.bookstore.catalog.AbstractIT;
+import com.louly.soft.bookstore.catalog.domain.ProductFacetService;
+import com.louly.soft.bookstore.catalog.domain.ProductSimilarityService;
+import com.louly.soft.bookstore.catalog.domain.ProductStatsService;
 import io.restassured.http.ContentType;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 
 @Sql("/test-data.sql")
+@TestPropertySource(properties = {"catalog.similar-enabled=true", "catalog.facet-enabled=true"})
 class ProductControllerTest extends AbstractIT {
 
+    @Autowired
+    private ProductStatsService productStatsService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductSimilarityService productSimilarityService;
+
     @Test
     void shouldReturnProducts() {
         given().contentType(ContentType.JSON)
@@ -29,6 +53,138 @@ class ProductControllerTest extends AbstractIT {
                 .body("hasPrevious", is(false));
     }
 
+    @Test
+    void shouldFilterProductsByPriceRange() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?minPrice=14&maxPrice=15&sort=PRICE_ASC")
+                .then()
+                .statusCode(200)
+                .body("totalElements", is(3))
+                .body("data.code", contains("P108", "P104", "P106"));
+    }
+
+    @Test
+    void shouldFilterProductsByNamePrefix() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?namePrefix=The G")
+                .then()
+                .statusCode(200)
+                .body("totalElements", is(1))
+                .body("data.code", contains("P105"));
+    }
+
+    @Test
+    void shouldListNamePrefixInNameOrder() {
+        for (String query : new String[] {"count=EXACT", "count=NONE", "count=NONE&fields=code,name"}) {
+            given().contentType(ContentType.JSON)
+                    .when()
+                    .get("/api/products?namePrefix=The &" + query)
+                    .then()
+                    .statusCode(200)
+                    .body("data.code", contains("P107", "P112", "P102", "P106", "P104", "P105", "P100", "P109"));
+        }
+    }
+
+    @Test
+    void shouldSortNewestProductsFirst() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?sort=NEWEST&count=NONE")
+                .then()
+                .statusCode(200)
+                .body("data[0].code", is("P114"))
+                .body("hasNext", is(true));
+    }
+
+    @Test
+    void shouldRejectFilterNotSupportedBySort() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?minPrice=10&sort=NAME")
+                .then()
+                .statusCode(400)
+                .body("title", is("Invalid Product Query"));
+    }
+
+    @Test
+    void shouldReturnProductsWithoutCount() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?page=2&count=NONE")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(5))
+                .body("totalElements", is(-1))
+                .body("totalPages", is(-1))
+                .body("pageNumber", is(2))
+                .body("hasNext", is(false))
+                .body("hasPrevious", is(true));
+    }
+
+    @Test
+    void shouldReturnProductsWithEstimatedCount() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?count=ESTIMATED")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(10))
+                .body("totalElements", is(15))
+                .body("totalPages", is(2))
+                .body("hasNext", is(true));
+    }
+
+    @Test
+    void shouldReturnProductsUsingCursorPagination() {
+        String nextCursor = given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?cursor=")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(10))
+                .body("data[0].name", is("A Game of Thrones"))
+                .body("hasNext", is(true))
+                .body("hasPrevious", is(false))
+                .body("nextCursor", notNullValue())
+                .body("prevCursor", nullValue())
+                .extract()
+                .path("nextCursor");
+
+        String prevCursor = given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?cursor={cursor}", nextCursor)
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(5))
+                .body("hasNext", is(false))
+                .body("hasPrevious", is(true))
+                .body("nextCursor", nullValue())
+                .extract()
+                .path("prevCursor");
+
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?cursor={cursor}", prevCursor)
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(10))
+                .body("data[0].name", is("A Game of Thrones"))
+                .body("hasPrevious", is(false))
+                .body("hasNext", is(true));
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidCursor() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?cursor=not-a-cursor")
+                .then()
+                .statusCode(400)
+                .body("title", is("Invalid Product Query"));
+    }
+
     @Test
     void shouldGetProductByCode() {
         String code = "P100";
@@ -43,6 +199,169 @@ class ProductControllerTest extends AbstractIT {
                 .body("price", is(34.0f));
     }
 
+    @Test
+    void shouldReturnNotModifiedWhenProductETagMatches() {
+        String eTag = given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .header("Cache-Control", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given().contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    void shouldGiveEveryEncodingItsOwnETag() {
+        for (String uri : List.of("/api/products/P100", "/api/products?page=2")) {
+            String json = given().accept(ContentType.JSON)
+                    .when()
+                    .get(uri)
+                    .then()
+                    .statusCode(200)
+                    .extract()
+                    .header("ETag");
+            String smile = given().accept("application/x-jackson-smile")
+                    .when()
+                    .get(uri)
+                    .then()
+                    .statusCode(200)
+                    .contentType("application/x-jackson-smile")
+                    .extract()
+                    .header("ETag");
+            String cbor = given().accept("application/json;q=0.5, application/cbor")
+                    .when()
+                    .get(uri)
+                    .then()
+                    .statusCode(200)
+                    .contentType("application/cbor")
+                    .extract()
+                    .header("ETag");
+
+            assertThat(List.of(json, smile, cbor)).doesNotHaveDuplicates();
+            given().accept("application/x-jackson-smile")
+                    .header("If-None-Match", json)
+                    .when()
+                    .get(uri)
+                    .then()
+                    .statusCode(200);
+            given().accept("application/x-jackson-smile")
+                    .header("If-None-Match", smile)
+                    .when()
+                    .get(uri)
+                    .then()
+                    .statusCode(304);
+        }
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenPageETagMatches() {
+        String eTag = given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?page=2")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        given().contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/api/products?page=2")
+                .then()
+                .statusCode(304);
+
+        given().contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/api/products?page=1")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldBrowseProductsByFacets() {
+        productFacetService.reload();
+
+        given().when()
+                .get("/api/products/browse?category=Classics&price=25-50")
+                .then()
+                .statusCode(200)
+                .body("products.data.code", contains("P103", "P101"))
+                .body("products.totalElements", is(2))
+                .body("facets.category.find { it.value == 'Classics' }.count", is(2))
+                .body("facets.category.find { it.value == 'Fantasy' }.count", is(2))
+                .body("facets.price.find { it.value == '10-25' }.count", is(1));
+
+        // the offset of the last page number does not overflow
+        given().when()
+                .get("/api/products/browse?category=Classics&page={page}", Integer.MAX_VALUE)
+                .then()
+                .statusCode(200)
+                .body("products.data", hasSize(0))
+                .body("products.totalElements", is(3));
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFields() {
+        given().when()
+                .get("/api/products?fields=name,price")
+                .then()
+                .statusCode(200)
+                .body("data[0].code", notNullValue())
+                .body("data[0].name", notNullValue())
+                .body("data[0].price", notNullValue())
+                .body("data[0]", not(hasKey("description")))
+                .body("data[0]", not(hasKey("imageUrl")));
+        given().when()
+                .get("/api/products/{code}?fields=code,imageUrl", "P100")
+                .then()
+                .statusCode(200)
+                .body("code", is("P100"))
+                .body("imageUrl", notNullValue())
+                .body("$", not(hasKey("name")));
+        given().when().get("/api/products?fields=name,secret").then().statusCode(400);
+    }
+
+    @Test
+    void shouldReturnSimilarProducts() {
+        productSimilarityService.reload();
+
+        given().when()
+                .get("/api/products/{code}/similar?limit=3", "P100")
+                .then()
+                .statusCode(200)
+                .body("", hasSize(lessThanOrEqualTo(3)))
+                .body("code", not(hasItem("P100")));
+        given().when().get("/api/products/{code}/similar", "P999").then().statusCode(404);
+    }
+
+    @Test
+    void shouldReturnMostViewedProducts() {
+        for (int i = 0; i < 10; i++) {
+            given().when().get("/api/products/{code}", "P105").then().statusCode(200);
+        }
+        productStatsService.flush();
+
+        given().when()
+                .get("/api/products/popular")
+                .then()
+                .statusCode(200)
+                .body("find { it.code == 'P105' }.views", is(10));
+        given().when()
+                .get("/api/products/popular?limit=1")
+                .then()
+                .statusCode(200)
+                .body("", hasSize(1));
+    }
+
     //    @Test
     //    void shouldGetProductByCode() {
     //        Product product = given().contentType(ContentType.JSON)
@@ -62,6 +381,72 @@ class ProductControllerTest extends AbstractIT {
     //        assertThat(product.price()).isEqualTo(new BigDecimal("34.0"));
     //    }
 
+    @Test
+    void shouldSearchProducts() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/search?q=hunger")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(1))
+                .body("data[0].code", is("P100"))
+                .body("totalElements", is(1))
+                .body("pageNumber", is(1));
+    }
+
+    @Test
+    void shouldSuggestProducts() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/suggest?prefix=hun")
+                .then()
+                .statusCode(200)
+                .body("name", hasItem("The Hunger Games"));
+    }
+
+    @Test
+    void shouldExportAllProductsAsNdjson() {
+        String body = given().when()
+                .get("/api/products/export")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract()
+                .asString();
+
+        assertThat(body.lines()).hasSize(15).allSatisfy(line -> assertThat(line).startsWith("{\"code\":"));
+    }
+
+    @Test
+    void shouldGetProductsByCodes() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?codes=P100,P101,P999")
+                .then()
+                .statusCode(200)
+                .body("products.P100.name", is("The Hunger Games"))
+                .body("products.P101.name", is("To Kill a Mockingbird"))
+                .body("products.P999", nullValue())
+                .body("missingCodes", contains("P999"));
+    }
+
+    @Test
+    void shouldLookupProductsByCodes() {
+        given().contentType(ContentType.JSON)
+                .body(
+                        """
+                        {"codes": ["P102", "P103", "P102", "unknown"]}
+                        """)
+                .when()
+                .post("/api/products/lookup")
+                .then()
+                .statusCode(200)
+                .body("products.size()", is(2))
+                .body("products.P102.name", is("The Chronicles of Narnia"))
+                .body("products.P103.name", is("Gone with the Wind"))
+                .body("missingCodes", contains("unknown"));
+    }
+
     @Test
     void shouldReturnNotFoundWhenProductCodeNotExists() {
         String code = "invalid_product_code";
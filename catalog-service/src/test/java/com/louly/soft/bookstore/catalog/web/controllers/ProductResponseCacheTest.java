@@ -0,0 +1,135 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.config.DecoderConfig.decoderConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
+import static org.springframework.test.context.jdbc.SqlMergeMode.MergeMode.MERGE;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import com.louly.soft.bookstore.catalog.domain.ProductsChangedEvent;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+
+@TestPropertySource(properties = "catalog.response-cache-enabled=true")
+@Sql("/test-data.sql")
+class ProductResponseCacheTest extends AbstractIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void shouldServeGzippedProductFromResponseCache() {
+        String eTag = given().header("Accept-Encoding", "gzip")
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", "gzip")
+                .body("name", is("The Hunger Games"))
+                .extract()
+                .header("ETag");
+
+        assertThat(eTag).endsWith("-gzip\"");
+        given().header("Accept-Encoding", "gzip")
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(304);
+        // without its decoders, the client does not send Accept-Encoding: gzip,deflate on top of ours
+        given().config(RestAssured.config().decoderConfig(decoderConfig().noContentDecoders()))
+                .header("Accept-Encoding", "identity")
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", nullValue())
+                .body("name", is("The Hunger Games"));
+    }
+
+    @Test
+    void shouldCacheEverySparseFieldsetOnItsOwn() {
+        String fieldsETag = given().when()
+                .get("/api/products/{code}?fields=price,name", "P100")
+                .then()
+                .statusCode(200)
+                .body("name", is("The Hunger Games"))
+                .body("$", not(hasKey("description")))
+                .extract()
+                .header("ETag");
+        String eTag = given().when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .body("description", notNullValue())
+                .extract()
+                .header("ETag");
+
+        assertThat(fieldsETag).isNotEqualTo(eTag);
+        // same fieldset in another order
+        given().header("If-None-Match", fieldsETag)
+                .when()
+                .get("/api/products/{code}?fields=name,price", "P100")
+                .then()
+                .statusCode(304);
+        given().when()
+                .get("/api/products?fields=name")
+                .then()
+                .statusCode(200)
+                .body("data[0]", hasKey("name"))
+                .body("data[0]", not(hasKey("price")));
+        given().when().get("/api/products").then().statusCode(200).body("data[0]", hasKey("price"));
+    }
+
+    @Test
+    @Sql(statements = "delete from products where code = 'P900'", executionPhase = AFTER_TEST_METHOD)
+    @SqlMergeMode(MERGE)
+    void shouldCacheUnknownProductCodesUntilProductsChange() {
+        given().when().get("/api/products/{code}", "P900").then().statusCode(404);
+        jdbcTemplate.update("insert into products(code, name, price) values ('P900', 'Created Elsewhere', 10)");
+
+        given().when().get("/api/products/{code}", "P900").then().statusCode(404);
+
+        eventPublisher.publishEvent(new ProductsChangedEvent(1));
+        given().when()
+                .get("/api/products/{code}", "P900")
+                .then()
+                .statusCode(200)
+                .body("name", is("Created Elsewhere"));
+    }
+
+    @Test
+    @Sql(statements = "delete from products where code like 'P9%'", executionPhase = AFTER_TEST_METHOD)
+    @SqlMergeMode(MERGE)
+    void shouldShareTheFirstPageAndNotCacheThePagesPastTheLastOne() {
+        given().when().get("/api/products?page=1").then().statusCode(200).body("totalElements", is(15));
+        given().when().get("/api/products?page=3").then().statusCode(200).body("data", empty());
+        jdbcTemplate.update(
+                "insert into products(code, name, price) select 'P9' || i, 'Created Elsewhere ' || i, 10 from generate_series(10, 19) as i");
+
+        given().when()
+                .get("/api/products?page=0")
+                .then()
+                .statusCode(200)
+                .body("pageNumber", is(1))
+                .body("totalElements", is(15));
+        given().when().get("/api/products?page=-5").then().statusCode(200).body("totalElements", is(15));
+        given().when().get("/api/products?page=3").then().statusCode(200).body("data.size()", is(5));
+    }
+}
@@ -0,0 +1,155 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+@Sql("/test-data.sql")
+@TestPropertySource(properties = {"catalog.admin-api-enabled=true", "catalog.stock-reservations-enabled=true"})
+class ProductStockControllerTest extends AbstractIT {
+
+    @Test
+    void shouldReserveAndReleaseStock() {
+        setStock("P100", 5).then().statusCode(200).body("available", is(5));
+
+        String first = reserve("P100", 3, null)
+                .then()
+                .statusCode(201)
+                .body("id", notNullValue())
+                .body("code", is("P100"))
+                .body("quantity", is(3))
+                .extract()
+                .path("id");
+        reserve("P100", 3, null).then().statusCode(409).body("title", is("Insufficient Stock"));
+        release(first).then().statusCode(204);
+        reserve("P100", 3, null).then().statusCode(201);
+        reserve("P100", 1, null).then().statusCode(201);
+
+        assertStock("P100", 4);
+    }
+
+    @Test
+    void shouldReleaseReservationOnlyOnce() {
+        setStock("P104", 5);
+        String first = reserve("P104", 2, null).then().statusCode(201).extract().path("id");
+        reserve("P104", 2, null).then().statusCode(201);
+
+        release(first).then().statusCode(204);
+        release(first).then().statusCode(204);
+
+        assertStock("P104", 2);
+        release(UUID.randomUUID().toString()).then().statusCode(404).body("title", is("Stock Reservation Not Found"));
+    }
+
+    @Test
+    void shouldReturnFirstReservationOfIdempotencyKey() {
+        setStock("P105", 3);
+        String first =
+                reserve("P105", 2, "order-1").then().statusCode(201).extract().path("id");
+
+        // the stock left is short, the retry still gets its reservation
+        reserve("P105", 2, "order-1").then().statusCode(201).body("id", is(first));
+        reserve("P105", 2, "order-2").then().statusCode(409);
+
+        assertStock("P105", 2);
+    }
+
+    @Test
+    void shouldReserveOnceForConcurrentRetries() throws Exception {
+        setStock("P106", 10);
+
+        List<Future<Response>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 16; i++) {
+                responses.add(executor.submit(() -> reserve("P106", 1, "order-1")));
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        for (Future<Response> response : responses) {
+            ids.add(response.get().then().statusCode(201).extract().path("id"));
+        }
+
+        assertThat(ids).hasSize(1);
+        assertStock("P106", 1);
+    }
+
+    @Test
+    void shouldNotSetStockBelowReservedQuantity() {
+        setStock("P101", 3);
+        reserve("P101", 2, null).then().statusCode(201);
+
+        setStock("P101", 1).then().statusCode(409);
+        setStock("P101", 10).then().statusCode(200).body("reserved", is(2)).body("available", is(8));
+    }
+
+    @Test
+    void shouldRefuseReservationsWithoutStock() {
+        reserve("P102", 1, null).then().statusCode(409);
+        reserve("P999", 1, null).then().statusCode(404);
+        reserve("P102", 0, null).then().statusCode(400);
+    }
+
+    @Test
+    void shouldNotOversellConcurrentReservations() throws Exception {
+        setStock("P103", 50);
+
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 80; i++) {
+                statuses.add(executor.submit(() -> reserve("P103", 1, null).statusCode()));
+            }
+        }
+        int reserved = 0;
+        for (Future<Integer> status : statuses) {
+            reserved += status.get() == 201 ? 1 : 0;
+        }
+
+        assertThat(reserved).isEqualTo(50);
+        assertStock("P103", 50);
+    }
+
+    private static void assertStock(String code, long reserved) {
+        given().when()
+                .get("/api/products/{code}/stock", code)
+                .then()
+                .statusCode(200)
+                .body("reserved", is((int) reserved));
+    }
+
+    private static Response setStock(String code, long quantity) {
+        return given().contentType(ContentType.JSON)
+                .body("{\"quantity\":" + quantity + "}")
+                .when()
+                .put("/api/products/{code}/stock", code);
+    }
+
+    private static Response reserve(String code, long quantity, String idempotencyKey) {
+        RequestSpecification request =
+                given().contentType(ContentType.JSON).body("{\"code\":\"" + code + "\",\"quantity\":" + quantity + "}");
+        if (idempotencyKey != null) {
+            request.header(StockReservationController.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return request.when().post("/internal/stock/reservations");
+    }
+
+    private static Response release(String id) {
+        return given().when().delete("/internal/stock/reservations/{id}", id);
+    }
+}
@@ -0,0 +1,127 @@
+package com.louly.soft.bookstore.catalog.web.controllers;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import com.louly.soft.bookstore.catalog.AbstractIT;
+import io.restassured.http.ContentType;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+@Sql("/test-data.sql")
+@ActiveProfiles("reactive")
+class ReactiveProductControllerTest extends AbstractIT {
+
+    @Test
+    void shouldReturnProducts() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?count=EXACT")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(10))
+                .body("totalElements", is(15))
+                .body("pageNumber", is(1))
+                .body("totalPages", is(2))
+                .body("hasNext", is(true));
+    }
+
+    @Test
+    void shouldSortProductsByPrice() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products?sort=PRICE_DESC&count=NONE&page=2")
+                .then()
+                .statusCode(200)
+                .body("data", hasSize(5))
+                .body("hasNext", is(false));
+    }
+
+    @Test
+    void shouldRejectParametersOnlyServedByTheMvcStack() {
+        for (String query : List.of(
+                "codes=P100,P101", "cursor=", "minPrice=10", "maxPrice=20", "namePrefix=The", "fields=code,name")) {
+            given().contentType(ContentType.JSON)
+                    .when()
+                    .get("/api/products?" + query)
+                    .then()
+                    .statusCode(400)
+                    .body("title", is("Invalid Product Query"))
+                    .body(
+                            "detail",
+                            is("Query parameter " + query.substring(0, query.indexOf('='))
+                                    + " is not supported by this endpoint"));
+        }
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}?fields=code", "P100")
+                .then()
+                .statusCode(400)
+                .body("title", is("Invalid Product Query"));
+    }
+
+    @Test
+    void shouldGetProductByCode() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .body("code", is("P100"))
+                .body("name", is("The Hunger Games"))
+                .body("price", is(34.0f));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenProductETagMatches() {
+        String eTag = given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .header("Cache-Control", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given().contentType(ContentType.JSON)
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    void shouldGiveTheSmileEncodingItsOwnETag() {
+        String json = given().accept(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        given().accept("application/x-jackson-smile")
+                .header("If-None-Match", json)
+                .when()
+                .get("/api/products/{code}", "P100")
+                .then()
+                .statusCode(200)
+                .header("ETag", is("\"P100-0-smile\""));
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenProductCodeNotExists() {
+        given().contentType(ContentType.JSON)
+                .when()
+                .get("/api/products/{code}", "P999")
+                .then()
+                .statusCode(404)
+                .body("title", is("Product Not Found"))
+                .body("detail", is("Product with code P999 not found"));
+    }
+}
@@ -1,10 +1,17 @@
 package com.louly.soft.bookstore.order;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.MediaType;
 
+/**
+ * @param catalogServiceMediaType preferred representation of the catalog-service responses
+ *        (application/x-jackson-smile, application/cbor or application/json, the default), JSON stays the fallback
+ */
 @ConfigurationProperties(prefix = "orders")
 public record ApplicationProperties(
         String catalogServiceUrl,
+        @DefaultValue(MediaType.APPLICATION_JSON_VALUE) String catalogServiceMediaType,
         String orderEventsExchange,
         String newOrdersQueue,
         String deliveredOrdersQueue,
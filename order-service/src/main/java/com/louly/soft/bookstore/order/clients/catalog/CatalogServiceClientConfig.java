@@ -5,6 +5,8 @@ import java.time.Duration;
 import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
@@ -39,6 +41,18 @@ class CatalogServiceClientConfig {
                 .build();
         return builder.baseUrl(properties.catalogServiceUrl())
                 .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.ACCEPT, accept(properties.catalogServiceMediaType()))
                 .build();
     }
+
+    /**
+     * The preferred media type, with JSON as fallback when it is not JSON itself.
+     */
+    static String accept(String mediaType) {
+        MediaType preferred = MediaType.parseMediaType(mediaType);
+        if (preferred.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            return MediaType.APPLICATION_JSON_VALUE;
+        }
+        return preferred + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+    }
 }
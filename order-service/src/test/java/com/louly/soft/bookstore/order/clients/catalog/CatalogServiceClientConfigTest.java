@@ -0,0 +1,19 @@
+package com.louly.soft.bookstore.order.clients.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CatalogServiceClientConfigTest {
+
+    @Test
+    void shouldPreferBinaryMediaTypeWithJsonFallback() {
+        assertThat(CatalogServiceClientConfig.accept("application/x-jackson-smile"))
+                .isEqualTo("application/x-jackson-smile, application/json;q=0.9");
+    }
+
+    @Test
+    void shouldOnlyAcceptJsonWhenJsonIsPreferred() {
+        assertThat(CatalogServiceClientConfig.accept("application/json")).isEqualTo("application/json");
+    }
+}